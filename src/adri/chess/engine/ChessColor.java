@@ -45,6 +45,11 @@ public enum ChessColor {
         public boolean isPromotionSquare(int[] pos) {
             return pos[0] == 0;
         }
+
+        @Override
+        public ChessColor getOpposite() {
+            return BLACK;
+        }
     },
     BLACK {
         @Override
@@ -86,6 +91,11 @@ public enum ChessColor {
         public boolean isPromotionSquare(int[] pos) {
             return pos[0] == 7;
         }
+
+        @Override
+        public ChessColor getOpposite() {
+            return WHITE;
+        }
     };
 
     public abstract int getDirection();
@@ -96,4 +106,5 @@ public enum ChessColor {
     public abstract String toString();
     public abstract String fileString();
     public abstract boolean isPromotionSquare(int[] pos);
+    public abstract ChessColor getOpposite();
 }
\ No newline at end of file
@@ -0,0 +1,212 @@
+package adri.chess.engine.board;
+
+import adri.chess.engine.ChessColor;
+
+// Precomputed attack tables. Knights, kings and pawns use a plain table per square.
+// Sliding pieces use magic bitboards: the relevant blockers are multiplied by a
+// per-square magic number, and the top bits of the product index straight into a
+// table of attack sets.
+public class AttackTables {
+
+    private static final int[][] ROOK_DIRECTIONS = {{1, 0}, {-1, 0}, {0, 1}, {0, -1}};
+    private static final int[][] BISHOP_DIRECTIONS = {{1, 1}, {1, -1}, {-1, 1}, {-1, -1}};
+    private static final int[][] KNIGHT_OFFSETS = {{-1, -2}, {1, -2}, {2, -1}, {2, 1}, {1, 2}, {-1, 2}, {-2, 1}, {-2, -1}};
+    private static final int[][] KING_OFFSETS = {{0, -1}, {1, -1}, {1, 0}, {1, 1}, {0, 1}, {-1, 1}, {-1, 0}, {-1, -1}};
+
+    private static final long[] KNIGHT_ATTACKS = new long[64];
+    private static final long[] KING_ATTACKS = new long[64];
+    private static final long[][] PAWN_ATTACKS = new long[2][64]; // [0] white, [1] black
+    private static final long[][] BETWEEN = new long[64][64];
+    private static final long[][] LINE = new long[64][64];
+
+    // found offline with a seeded xorshift search over sparse random candidates
+    private static final long[] ROOK_MAGICS = {
+        0x1080004008801020L, 0x0840092002C03000L, 0x1900200010400900L, 0x0880100008000480L,
+        0x4200100420080200L, 0x8100020100080400L, 0x0200040110886200L, 0x0200008040220411L,
+        0x0404800084400220L, 0x0000401000402000L, 0x0086001081220440L, 0x0408800800100280L,
+        0x000A001201040820L, 0x8848800200840080L, 0x4001000100040200L, 0x0442000102105084L,
+        0x9080010020804100L, 0x0040404000201009L, 0x0000808010002009L, 0x2200090021D00100L,
+        0x0008008008040080L, 0x0004004002010040L, 0x0011040008015042L, 0x00000A0001768104L,
+        0x0000800080204009L, 0x2010004140002001L, 0x9800200280100080L, 0x1000100080080080L,
+        0x0050500500080100L, 0x0000020080040080L, 0x0C10010400420810L, 0x1040008200005104L,
+        0x01808240088004A0L, 0x0882804004802000L, 0x0880402001001100L, 0x2000210409001000L,
+        0x2000480131001500L, 0x0000800400800200L, 0x000002380C001003L, 0x4600084882000431L,
+        0x0080002000504000L, 0x0300500020004002L, 0x0040408200220011L, 0x0010040008004040L,
+        0x0000080004008080L, 0x0010040002008080L, 0x2012004881020004L, 0x8300842444820011L,
+        0x0088403882010200L, 0x0820400080210100L, 0x0110910040A00300L, 0x0801100280080480L,
+        0x0242009008200600L, 0x1002000489500200L, 0x0040800200010080L, 0x0091800041000080L,
+        0x0000209300488001L, 0x04C1002414824001L, 0x020020000B001041L, 0x7000100004200901L,
+        0x8002002004100802L, 0x30010002084C0007L, 0x0888221800813004L, 0x4000002840840112L
+    };
+    private static final long[] BISHOP_MAGICS = {
+        0x20C0090901061081L, 0x0024040094030104L, 0x8210810200290200L, 0x0011040484620000L,
+        0x0081104002221000L, 0x0009012011001350L, 0x0081010802400380L, 0x0000420210010408L,
+        0x0008105002280050L, 0x0001028484040044L, 0x2A00880810408804L, 0x7020022282000100L,
+        0x0084040420100A50L, 0x000401010840E000L, 0x2020020210420888L, 0x0008084202012010L,
+        0x2010400810018800L, 0x0445122008020840L, 0x0804100808002008L, 0x0008002104110100L,
+        0x0061005820080800L, 0x2001000200820100L, 0x480C210084010800L, 0x3004442500480420L,
+        0x1010102240048100L, 0x00182009084220A3L, 0x8803090A10004205L, 0x0208080040202020L,
+        0x000C044084010040L, 0x00A1010002004106L, 0x6008210020640202L, 0x1600902112860801L,
+        0x00042008C1220200L, 0x010C042002440140L, 0x5022080200040820L, 0x0402004042940100L,
+        0x0860108400008020L, 0x000C080022021000L, 0x0264080652822100L, 0x4005031221010401L,
+        0x0004502410008400L, 0x000500B010A20400L, 0x0415094050080800L, 0x080000201800A104L,
+        0x4022A80304000110L, 0x4012140802028020L, 0x40200104010100A0L, 0x12810806008B0C41L,
+        0x0020441008080000L, 0x2002120084045420L, 0x0704020062080002L, 0x0000001084040001L,
+        0x0322200891240200L, 0xF040200210024800L, 0x0140824832008042L, 0x000210020A004602L,
+        0x0083042805141020L, 0x002C12009A011000L, 0x0041A00044140400L, 0x00004004020A0202L,
+        0x0000140010020210L, 0x2864160811012200L, 0x2060080841082A17L, 0xA010041108003100L
+    };
+
+    private static final long[] ROOK_MASKS = new long[64];
+    private static final long[] BISHOP_MASKS = new long[64];
+    private static final int[] ROOK_SHIFTS = new int[64];
+    private static final int[] BISHOP_SHIFTS = new int[64];
+    private static final long[][] ROOK_ATTACKS = new long[64][];
+    private static final long[][] BISHOP_ATTACKS = new long[64][];
+
+    static {
+        for (int square = 0; square < BoardUtils.NUM_TILES; square++) {
+            ROOK_MASKS[square] = relevantBlockers(square, ROOK_DIRECTIONS);
+            BISHOP_MASKS[square] = relevantBlockers(square, BISHOP_DIRECTIONS);
+            ROOK_SHIFTS[square] = 64 - Long.bitCount(ROOK_MASKS[square]);
+            BISHOP_SHIFTS[square] = 64 - Long.bitCount(BISHOP_MASKS[square]);
+            ROOK_ATTACKS[square] = fillAttackTable(square, ROOK_MASKS[square], ROOK_MAGICS[square], ROOK_SHIFTS[square], ROOK_DIRECTIONS);
+            BISHOP_ATTACKS[square] = fillAttackTable(square, BISHOP_MASKS[square], BISHOP_MAGICS[square], BISHOP_SHIFTS[square], BISHOP_DIRECTIONS);
+            KNIGHT_ATTACKS[square] = leaperAttacks(square, KNIGHT_OFFSETS);
+            KING_ATTACKS[square] = leaperAttacks(square, KING_OFFSETS);
+            // white pawns move towards rank index 0, black pawns towards 7
+            PAWN_ATTACKS[0][square] = leaperAttacks(square, new int[][]{{-1, -1}, {-1, 1}});
+            PAWN_ATTACKS[1][square] = leaperAttacks(square, new int[][]{{1, -1}, {1, 1}});
+        }
+
+        for (int from = 0; from < BoardUtils.NUM_TILES; from++) {
+            for (int to = 0; to < BoardUtils.NUM_TILES; to++) {
+                final long fromBit = 1L << from;
+                final long toBit = 1L << to;
+                if ((rookAttacks(from, 0L) & toBit) != 0) {
+                    BETWEEN[from][to] = rookAttacks(from, toBit) & rookAttacks(to, fromBit);
+                    LINE[from][to] = (rookAttacks(from, 0L) & rookAttacks(to, 0L)) | fromBit | toBit;
+                } else if ((bishopAttacks(from, 0L) & toBit) != 0) {
+                    BETWEEN[from][to] = bishopAttacks(from, toBit) & bishopAttacks(to, fromBit);
+                    LINE[from][to] = (bishopAttacks(from, 0L) & bishopAttacks(to, 0L)) | fromBit | toBit;
+                }
+            }
+        }
+    }
+
+    private AttackTables() {
+        throw new RuntimeException("Cannot instantiate AttackTables");
+    }
+
+    public static long rookAttacks(final int square, final long occupancy) {
+        return ROOK_ATTACKS[square][(int) (((occupancy & ROOK_MASKS[square]) * ROOK_MAGICS[square]) >>> ROOK_SHIFTS[square])];
+    }
+
+    public static long bishopAttacks(final int square, final long occupancy) {
+        return BISHOP_ATTACKS[square][(int) (((occupancy & BISHOP_MASKS[square]) * BISHOP_MAGICS[square]) >>> BISHOP_SHIFTS[square])];
+    }
+
+    public static long queenAttacks(final int square, final long occupancy) {
+        return rookAttacks(square, occupancy) | bishopAttacks(square, occupancy);
+    }
+
+    public static long knightAttacks(final int square) {
+        return KNIGHT_ATTACKS[square];
+    }
+
+    public static long kingAttacks(final int square) {
+        return KING_ATTACKS[square];
+    }
+
+    // squares a pawn of the given color on this square attacks
+    public static long pawnAttacks(final int square, final ChessColor color) {
+        return PAWN_ATTACKS[color.isWhite() ? 0 : 1][square];
+    }
+
+    // squares strictly between two squares on the same rank, file or diagonal, 0 otherwise
+    public static long between(final int from, final int to) {
+        return BETWEEN[from][to];
+    }
+
+    // the whole rank, file or diagonal through two squares, edge to edge, 0 if they are not aligned
+    public static long line(final int from, final int to) {
+        return LINE[from][to];
+    }
+
+    // every piece of the given color attacking the square, pieceBoards indexed as in BitBoard
+    public static long attackersTo(final long[] pieceBoards, final int square, final long occupancy, final ChessColor by) {
+        final int offset = BitBoard.pieceColorOffset(by);
+        final long queens = pieceBoards[offset + BitBoard.WHITE_QUEEN];
+        final long attackers =
+            (pawnAttacks(square, by.getOpposite()) & pieceBoards[offset + BitBoard.WHITE_PAWN]) |
+            (knightAttacks(square) & pieceBoards[offset + BitBoard.WHITE_KNIGHT]) |
+            (kingAttacks(square) & pieceBoards[offset + BitBoard.WHITE_KING]) |
+            (bishopAttacks(square, occupancy) & (pieceBoards[offset + BitBoard.WHITE_BISHOP] | queens)) |
+            (rookAttacks(square, occupancy) & (pieceBoards[offset + BitBoard.WHITE_ROOK] | queens));
+        return attackers & occupancy;
+    }
+
+    private static long leaperAttacks(final int square, final int[][] offsets) {
+        long attacks = 0L;
+        for (int[] offset : offsets) {
+            final int rank = square / 8 + offset[0];
+            final int file = square % 8 + offset[1];
+            if (isOnBoard(rank, file)) {
+                attacks |= 1L << (rank * 8 + file);
+            }
+        }
+        return attacks;
+    }
+
+    // squares along each ray that can block, not counting the edge of the board
+    private static long relevantBlockers(final int square, final int[][] directions) {
+        long mask = 0L;
+        for (int[] direction : directions) {
+            int rank = square / 8 + direction[0];
+            int file = square % 8 + direction[1];
+            while (isOnBoard(rank + direction[0], file + direction[1])) {
+                mask |= 1L << (rank * 8 + file);
+                rank += direction[0];
+                file += direction[1];
+            }
+        }
+        return mask;
+    }
+
+    // attacks found by walking each ray, only used to fill the tables
+    private static long slowAttacks(final int square, final long occupancy, final int[][] directions) {
+        long attacks = 0L;
+        for (int[] direction : directions) {
+            int rank = square / 8 + direction[0];
+            int file = square % 8 + direction[1];
+            while (isOnBoard(rank, file)) {
+                final long bit = 1L << (rank * 8 + file);
+                attacks |= bit;
+                if ((occupancy & bit) != 0) {
+                    break;
+                }
+                rank += direction[0];
+                file += direction[1];
+            }
+        }
+        return attacks;
+    }
+
+    private static long[] fillAttackTable(final int square, final long mask, final long magic, final int shift,
+                                          final int[][] directions) {
+        final long[] table = new long[1 << (64 - shift)];
+
+        // enumerate every subset of the mask (carry-rippler trick)
+        long blockers = 0L;
+        do {
+            table[(int) ((blockers * magic) >>> shift)] = slowAttacks(square, blockers, directions);
+            blockers = (blockers - mask) & mask;
+        } while (blockers != 0L);
+
+        return table;
+    }
+
+    private static boolean isOnBoard(final int rank, final int file) {
+        return rank >= 0 && rank < BoardUtils.NUM_RANKS && file >= 0 && file < BoardUtils.NUM_FILES;
+    }
+}
@@ -0,0 +1,562 @@
+package adri.chess.engine.board;
+
+import java.util.Arrays;
+
+import adri.chess.engine.ChessColor;
+import adri.chess.engine.pieces.Bishop;
+import adri.chess.engine.pieces.King;
+import adri.chess.engine.pieces.Knight;
+import adri.chess.engine.pieces.Pawn;
+import adri.chess.engine.pieces.Piece;
+import adri.chess.engine.pieces.Piece.PieceType;
+import adri.chess.engine.pieces.Queen;
+import adri.chess.engine.pieces.Rook;
+
+// Bitboard representation of a position, one long per piece type and color.
+// Squares use the same numbering as Board: square = rank * 8 + file, with
+// rank 0 being black's back rank (a8 = 0, h1 = 63).
+public class BitBoard {
+
+    // piece indices, same as BoardUtils.pieceIndex()
+    public static final int WHITE_PAWN = 0;
+    public static final int WHITE_KNIGHT = 1;
+    public static final int WHITE_BISHOP = 2;
+    public static final int WHITE_ROOK = 3;
+    public static final int WHITE_QUEEN = 4;
+    public static final int WHITE_KING = 5;
+    public static final int BLACK_PAWN = 6;
+    public static final int BLACK_KNIGHT = 7;
+    public static final int BLACK_BISHOP = 8;
+    public static final int BLACK_ROOK = 9;
+    public static final int BLACK_QUEEN = 10;
+    public static final int BLACK_KING = 11;
+    public static final int NO_PIECE = -1;
+
+    // castling right flags, same order as BoardUtils.ZOBRIST_CASTLING
+    public static final int WHITE_KING_SIDE = 1;
+    public static final int WHITE_QUEEN_SIDE = 2;
+    public static final int BLACK_KING_SIDE = 4;
+    public static final int BLACK_QUEEN_SIDE = 8;
+
+    public static final int NO_SQUARE = -1;
+
+    // rights kept after a piece moves from or to a square (moving a king or rook, or capturing a rook)
+    private static final int[] CASTLING_MASKS = new int[64];
+
+    static {
+        Arrays.fill(CASTLING_MASKS, WHITE_KING_SIDE | WHITE_QUEEN_SIDE | BLACK_KING_SIDE | BLACK_QUEEN_SIDE);
+        CASTLING_MASKS[60] &= ~(WHITE_KING_SIDE | WHITE_QUEEN_SIDE);
+        CASTLING_MASKS[63] &= ~WHITE_KING_SIDE;
+        CASTLING_MASKS[56] &= ~WHITE_QUEEN_SIDE;
+        CASTLING_MASKS[4] &= ~(BLACK_KING_SIDE | BLACK_QUEEN_SIDE);
+        CASTLING_MASKS[7] &= ~BLACK_KING_SIDE;
+        CASTLING_MASKS[0] &= ~BLACK_QUEEN_SIDE;
+    }
+
+    // piece index % 6 -> piece type
+    public static final PieceType[] PIECE_TYPES = PieceType.values();
+
+    private static final int INITIAL_UNDO_CAPACITY = 256;
+    private static final int NULL_MOVE_UNDO = -1; // no real move packs to a negative undo entry
+    private static final long[] NO_KEYS = new long[0];
+
+    private final long[] pieceBoards;
+    private final long[] colorOccupancy; // 0 = white, 1 = black
+    private long occupancy;
+    private ChessColor sideToMove;
+    private int castlingRights;
+    private int enPassantSquare;
+    private long hash;
+    private int halfmoveClock; // plies since the last pawn move or capture
+    private long[] gameKeys; // keys of the positions before the first move on the undo stack that it can repeat, oldest first
+
+    // undo stack for unmakeMove(), one entry per move made
+    private int undoCount;
+    private int[] undoMoves;      // from | to << 6 | moved << 12 | placed << 16 | captured << 20 (captured + 1, 0 = none)
+    private int[] undoCapturedSquares;
+    private int[] undoCastlingRights;
+    private int[] undoEnPassantSquares;
+    private long[] undoHashes;
+    private int[] undoHalfmoveClocks;
+
+    public BitBoard() {
+        this.pieceBoards = new long[12];
+        this.colorOccupancy = new long[2];
+        this.occupancy = 0L;
+        this.sideToMove = ChessColor.WHITE;
+        this.castlingRights = 0;
+        this.enPassantSquare = NO_SQUARE;
+        this.halfmoveClock = 0;
+        this.gameKeys = NO_KEYS;
+        this.undoMoves = new int[INITIAL_UNDO_CAPACITY];
+        this.undoCapturedSquares = new int[INITIAL_UNDO_CAPACITY];
+        this.undoCastlingRights = new int[INITIAL_UNDO_CAPACITY];
+        this.undoEnPassantSquares = new int[INITIAL_UNDO_CAPACITY];
+        this.undoHashes = new long[INITIAL_UNDO_CAPACITY];
+        this.undoHalfmoveClocks = new int[INITIAL_UNDO_CAPACITY];
+    }
+
+    public static BitBoard fromBoard(final Board board) {
+        return fromBoard(board, board.getCurrentPlayer().getColor());
+    }
+
+    // same as fromBoard(board), but with the given side to move
+    public static BitBoard fromBoard(final Board board, final ChessColor sideToMove) {
+        final BitBoard position = new BitBoard();
+        for (int square = 0; square < BoardUtils.NUM_TILES; square++) {
+            final Tile tile = board.getTile(new int[]{square / 8, square % 8});
+            if (tile.hasPiece()) {
+                position.setPiece(BoardUtils.pieceIndex(tile.getPiece()), square);
+            }
+        }
+
+        position.sideToMove = sideToMove;
+        position.castlingRights = calculateCastlingRights(board);
+
+        // square the jumped pawn passed over
+        final Pawn jumpedPawn = board.getJumpedPawn();
+        if (jumpedPawn != null && jumpedPawn.getPieceColor() != position.sideToMove) {
+            final int[] pawnPos = jumpedPawn.getPiecePos();
+            position.enPassantSquare = (pawnPos[0] + jumpedPawn.getPieceColor().getOppositeDirection()) * 8 + pawnPos[1];
+        }
+        position.halfmoveClock = board.getHalfmoveClock();
+        position.gameKeys = board.getRepetitionKeys();
+        position.hash = position.computeHash();
+        return position;
+    }
+
+    // the current position without the moves that led to it, so it can't be unmade past here,
+    // but it still knows the positions it could repeat
+    public BitBoard copy() {
+        final BitBoard position = new BitBoard();
+        System.arraycopy(this.pieceBoards, 0, position.pieceBoards, 0, this.pieceBoards.length);
+        System.arraycopy(this.colorOccupancy, 0, position.colorOccupancy, 0, this.colorOccupancy.length);
+        position.occupancy = this.occupancy;
+        position.sideToMove = this.sideToMove;
+        position.castlingRights = this.castlingRights;
+        position.enPassantSquare = this.enPassantSquare;
+        position.hash = this.hash;
+        position.halfmoveClock = this.halfmoveClock;
+        position.gameKeys = repetitionKeys();
+        return position;
+    }
+
+    static int calculateCastlingRights(final Board board) {
+        int rights = 0;
+        final King whiteKing = board.getWhitePlayer().getPlayerKing();
+        final King blackKing = board.getBlackPlayer().getPlayerKing();
+        if (whiteKing.isKingSideCastleAllowed() && isUnmovedRook(board, 63, ChessColor.WHITE)) {
+            rights |= WHITE_KING_SIDE;
+        }
+        if (whiteKing.isQueenSideCastleAllowed() && isUnmovedRook(board, 56, ChessColor.WHITE)) {
+            rights |= WHITE_QUEEN_SIDE;
+        }
+        if (blackKing.isKingSideCastleAllowed() && isUnmovedRook(board, 7, ChessColor.BLACK)) {
+            rights |= BLACK_KING_SIDE;
+        }
+        if (blackKing.isQueenSideCastleAllowed() && isUnmovedRook(board, 0, ChessColor.BLACK)) {
+            rights |= BLACK_QUEEN_SIDE;
+        }
+        return rights;
+    }
+
+    private static boolean isUnmovedRook(final Board board, final int square, final ChessColor color) {
+        final Tile tile = board.getTile(new int[]{square / 8, square % 8});
+        return tile.hasPiece() && tile.getPiece().getPieceType().isRook() &&
+               tile.getPiece().getPieceColor() == color && tile.getPiece().isFirstMove();
+    }
+
+    public Board toBoard() {
+        final Board.Builder builder = new Board.Builder();
+        Pawn jumpedPawn = null;
+        final int jumpedPawnSquare = this.enPassantSquare == NO_SQUARE ? NO_SQUARE :
+                                     this.enPassantSquare + 8 * this.sideToMove.getOppositeDirection();
+
+        for (int square = 0; square < BoardUtils.NUM_TILES; square++) {
+            final int pieceIndex = pieceAt(square);
+            if (pieceIndex == NO_PIECE) {
+                continue;
+            }
+            final Piece piece = createPiece(pieceIndex, square);
+            if (square == jumpedPawnSquare && piece instanceof Pawn) {
+                jumpedPawn = (Pawn) piece;
+            }
+            builder.setPiece(piece);
+        }
+
+        builder.setJumpedPawn(jumpedPawn);
+        builder.setEnPassantPawn(null);
+        builder.setCurrentColor(this.sideToMove);
+        builder.setHalfmoveClock(this.halfmoveClock);
+        builder.setRepetitionKeys(repetitionKeys());
+        return builder.build();
+    }
+
+    private Piece createPiece(final int pieceIndex, final int square) {
+        final int[] pos = {square / 8, square % 8};
+        final ChessColor color = pieceIndex < 6 ? ChessColor.WHITE : ChessColor.BLACK;
+        switch (pieceIndex % 6) {
+            case WHITE_PAWN:
+                return new Pawn(pos, color);
+            case WHITE_KNIGHT:
+                return new Knight(pos, color);
+            case WHITE_BISHOP:
+                return new Bishop(pos, color);
+            case WHITE_ROOK:
+                return new Rook(pos, color, isCastlingRook(square));
+            case WHITE_QUEEN:
+                return new Queen(pos, color);
+            default:
+                final boolean kingSide = hasCastlingRight(color.isWhite() ? WHITE_KING_SIDE : BLACK_KING_SIDE);
+                final boolean queenSide = hasCastlingRight(color.isWhite() ? WHITE_QUEEN_SIDE : BLACK_QUEEN_SIDE);
+                return new King(pos, color, kingSide || queenSide, kingSide, queenSide);
+        }
+    }
+
+    private boolean isCastlingRook(final int square) {
+        switch (square) {
+            case 63:
+                return hasCastlingRight(WHITE_KING_SIDE);
+            case 56:
+                return hasCastlingRight(WHITE_QUEEN_SIDE);
+            case 7:
+                return hasCastlingRight(BLACK_KING_SIDE);
+            case 0:
+                return hasCastlingRight(BLACK_QUEEN_SIDE);
+            default:
+                return false;
+        }
+    }
+
+    // Plays a packed move (see PackedMove) in place
+    public void makeMove(final int move) {
+        makeMove(PackedMove.getFrom(move), PackedMove.getTo(move), PackedMove.getPromotionPiece(move, this.sideToMove));
+    }
+
+    // Plays a move in place. promotionPiece is the piece index a pawn becomes, or NO_PIECE.
+    // Castling (king moving two files) and en passant are recognised from the position itself.
+    public void makeMove(final int from, final int to, final int promotionPiece) {
+        final int moved = pieceAt(from);
+        int captured = pieceAt(to);
+        int capturedSquare = to;
+        final boolean isPawn = moved == WHITE_PAWN || moved == BLACK_PAWN;
+
+        if (isPawn && to == this.enPassantSquare) {
+            capturedSquare = to + 8 * this.sideToMove.getOppositeDirection();
+            captured = pieceAt(capturedSquare);
+        }
+
+        final int placed = promotionPiece == NO_PIECE ? moved : promotionPiece;
+        pushUndo(from | to << 6 | moved << 12 | placed << 16 | (captured + 1) << 20, capturedSquare);
+
+        this.hash ^= castlingHash(this.castlingRights) ^ enPassantHash(this.enPassantSquare);
+
+        if (captured != NO_PIECE) {
+            removePiece(captured, capturedSquare);
+            this.hash ^= BoardUtils.ZOBRIST_PIECES[captured][capturedSquare];
+        }
+        removePiece(moved, from);
+        setPiece(placed, to);
+        this.hash ^= BoardUtils.ZOBRIST_PIECES[moved][from] ^ BoardUtils.ZOBRIST_PIECES[placed][to];
+
+        if ((moved == WHITE_KING || moved == BLACK_KING) && Math.abs(to - from) == 2) {
+            moveCastleRook(moved - WHITE_KING + WHITE_ROOK, from, to, false);
+        }
+
+        this.enPassantSquare = isPawn && Math.abs(to - from) == 16 ? (from + to) / 2 : NO_SQUARE;
+        this.castlingRights = updateCastlingRights(this.castlingRights, from, to);
+        this.hash ^= castlingHash(this.castlingRights) ^ enPassantHash(this.enPassantSquare);
+
+        this.halfmoveClock = isPawn || captured != NO_PIECE ? 0 : this.halfmoveClock + 1;
+        this.sideToMove = this.sideToMove.getOpposite();
+        this.hash ^= BoardUtils.ZOBRIST_SIDE;
+    }
+
+    // Passes the turn without moving, for null move pruning. Only the side to move and the
+    // en passant square change, so it can only be played when the side to move isn't in check.
+    public void makeNullMove() {
+        pushUndo(NULL_MOVE_UNDO, NO_SQUARE);
+        this.hash ^= enPassantHash(this.enPassantSquare);
+        this.enPassantSquare = NO_SQUARE;
+        this.halfmoveClock = 0; // nothing before a pass counts as a repetition of what follows it
+        this.sideToMove = this.sideToMove.getOpposite();
+        this.hash ^= BoardUtils.ZOBRIST_SIDE;
+    }
+
+    // Takes back the last move played with makeMove() or makeNullMove()
+    public void unmakeMove() {
+        this.undoCount--;
+        final int undo = this.undoMoves[this.undoCount];
+        if (undo == NULL_MOVE_UNDO) {
+            this.sideToMove = this.sideToMove.getOpposite();
+            this.enPassantSquare = this.undoEnPassantSquares[this.undoCount];
+            this.hash = this.undoHashes[this.undoCount];
+            this.halfmoveClock = this.undoHalfmoveClocks[this.undoCount];
+            return;
+        }
+        final int from = undo & 0x3F;
+        final int to = (undo >>> 6) & 0x3F;
+        final int moved = (undo >>> 12) & 0xF;
+        final int placed = (undo >>> 16) & 0xF;
+        final int captured = ((undo >>> 20) & 0xF) - 1;
+
+        this.sideToMove = this.sideToMove.getOpposite();
+
+        removePiece(placed, to);
+        setPiece(moved, from);
+        if ((moved == WHITE_KING || moved == BLACK_KING) && Math.abs(to - from) == 2) {
+            moveCastleRook(moved - WHITE_KING + WHITE_ROOK, from, to, true);
+        }
+        if (captured != NO_PIECE) {
+            setPiece(captured, this.undoCapturedSquares[this.undoCount]);
+        }
+
+        this.castlingRights = this.undoCastlingRights[this.undoCount];
+        this.enPassantSquare = this.undoEnPassantSquares[this.undoCount];
+        this.hash = this.undoHashes[this.undoCount];
+        this.halfmoveClock = this.undoHalfmoveClocks[this.undoCount];
+    }
+
+    private void moveCastleRook(final int rook, final int kingFrom, final int kingTo, final boolean undo) {
+        // king side rook sits next to the king's destination, queen side rook two files further away
+        final int rookFrom = kingTo > kingFrom ? kingFrom + 3 : kingFrom - 4;
+        final int rookTo = (kingFrom + kingTo) / 2;
+        if (undo) {
+            removePiece(rook, rookTo);
+            setPiece(rook, rookFrom);
+        } else {
+            removePiece(rook, rookFrom);
+            setPiece(rook, rookTo);
+            this.hash ^= BoardUtils.ZOBRIST_PIECES[rook][rookFrom] ^ BoardUtils.ZOBRIST_PIECES[rook][rookTo];
+        }
+    }
+
+    private void pushUndo(final int undo, final int capturedSquare) {
+        if (this.undoCount == this.undoMoves.length) {
+            final int capacity = this.undoMoves.length * 2;
+            this.undoMoves = Arrays.copyOf(this.undoMoves, capacity);
+            this.undoCapturedSquares = Arrays.copyOf(this.undoCapturedSquares, capacity);
+            this.undoCastlingRights = Arrays.copyOf(this.undoCastlingRights, capacity);
+            this.undoEnPassantSquares = Arrays.copyOf(this.undoEnPassantSquares, capacity);
+            this.undoHashes = Arrays.copyOf(this.undoHashes, capacity);
+            this.undoHalfmoveClocks = Arrays.copyOf(this.undoHalfmoveClocks, capacity);
+        }
+        this.undoMoves[this.undoCount] = undo;
+        this.undoCapturedSquares[this.undoCount] = capturedSquare;
+        this.undoCastlingRights[this.undoCount] = this.castlingRights;
+        this.undoEnPassantSquares[this.undoCount] = this.enPassantSquare;
+        this.undoHashes[this.undoCount] = this.hash;
+        this.undoHalfmoveClocks[this.undoCount] = this.halfmoveClock;
+        this.undoCount++;
+    }
+
+    // True if the position came up before since the last pawn move or capture, in the game or in
+    // the search. Only every second ply back has the same side to move, and a position needs at
+    // least four plies to come back, so this looks at halfmoveClock / 2 - 1 keys at most.
+    public boolean isRepetition() {
+        final int reachable = Math.min(this.halfmoveClock, this.undoCount + this.gameKeys.length);
+        for (int plies = 4; plies <= reachable; plies += 2) {
+            if (previousHash(plies) == this.hash) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // fifty moves each without a pawn move or capture
+    public boolean isFiftyMoveDraw() {
+        return this.halfmoveClock >= 100;
+    }
+
+    // key of the position that many plies back, from the undo stack or before it from the game
+    private long previousHash(final int plies) {
+        final int index = this.undoCount - plies;
+        return index >= 0 ? this.undoHashes[index] : this.gameKeys[this.gameKeys.length + index];
+    }
+
+    // keys of the positions since the last pawn move or capture, oldest first
+    private long[] repetitionKeys() {
+        final int count = Math.min(this.halfmoveClock, this.undoCount + this.gameKeys.length);
+        final long[] keys = new long[count];
+        for (int i = 0; i < count; i++) {
+            keys[i] = previousHash(count - i);
+        }
+        return keys;
+    }
+
+    // for positions set up piece by piece with the setters, which leave the key alone
+    public void recomputeHash() {
+        this.hash = computeHash();
+    }
+
+    public long computeHash() {
+        long key = 0L;
+        for (int pieceIndex = WHITE_PAWN; pieceIndex <= BLACK_KING; pieceIndex++) {
+            long pieces = this.pieceBoards[pieceIndex];
+            while (pieces != 0) {
+                key ^= BoardUtils.ZOBRIST_PIECES[pieceIndex][Long.numberOfTrailingZeros(pieces)];
+                pieces &= pieces - 1;
+            }
+        }
+        if (this.sideToMove.isWhite()) {
+            key ^= BoardUtils.ZOBRIST_SIDE;
+        }
+        return key ^ castlingHash(this.castlingRights) ^ enPassantHash(this.enPassantSquare);
+    }
+
+    // rights left after a move from one square to another, moving or capturing on a king or rook square drops them
+    static int updateCastlingRights(final int rights, final int from, final int to) {
+        return rights & CASTLING_MASKS[from] & CASTLING_MASKS[to];
+    }
+
+    static long castlingHash(final int rights) {
+        long key = 0L;
+        for (int i = 0; i < 4; i++) {
+            if ((rights & (1 << i)) != 0) {
+                key ^= BoardUtils.ZOBRIST_CASTLING[i];
+            }
+        }
+        return key;
+    }
+
+    static long enPassantHash(final int square) {
+        return square == NO_SQUARE ? 0L : BoardUtils.ZOBRIST_ENPASSANT[square % 8];
+    }
+
+    public void setPiece(final int pieceIndex, final int square) {
+        final long bit = 1L << square;
+        this.pieceBoards[pieceIndex] |= bit;
+        this.colorOccupancy[pieceIndex < 6 ? 0 : 1] |= bit;
+        this.occupancy |= bit;
+    }
+
+    public void removePiece(final int pieceIndex, final int square) {
+        final long bit = ~(1L << square);
+        this.pieceBoards[pieceIndex] &= bit;
+        this.colorOccupancy[pieceIndex < 6 ? 0 : 1] &= bit;
+        this.occupancy &= bit;
+    }
+
+    public int pieceAt(final int square) {
+        final long bit = 1L << square;
+        if ((this.occupancy & bit) == 0) {
+            return NO_PIECE;
+        }
+        final int first = (this.colorOccupancy[0] & bit) != 0 ? WHITE_PAWN : BLACK_PAWN;
+        for (int pieceIndex = first; pieceIndex < first + 6; pieceIndex++) {
+            if ((this.pieceBoards[pieceIndex] & bit) != 0) {
+                return pieceIndex;
+            }
+        }
+        return NO_PIECE;
+    }
+
+    public long getPieceBoard(final int pieceIndex) {
+        return this.pieceBoards[pieceIndex];
+    }
+
+    public long getOccupancy() {
+        return this.occupancy;
+    }
+
+    public long getOccupancy(final ChessColor color) {
+        return this.colorOccupancy[color.isWhite() ? 0 : 1];
+    }
+
+    public int getPieceCount(final int pieceIndex) {
+        return Long.bitCount(this.pieceBoards[pieceIndex]);
+    }
+
+    // value of the color's pieces, king excluded, using the PieceType values
+    public int getMaterialValue(final ChessColor color) {
+        final int offset = pieceColorOffset(color);
+        int material = 0;
+        for (int pieceIndex = WHITE_PAWN; pieceIndex < WHITE_KING; pieceIndex++) {
+            material += Long.bitCount(this.pieceBoards[offset + pieceIndex]) * PIECE_TYPES[pieceIndex].getPieceValue();
+        }
+        return material;
+    }
+
+    // anything besides pawns and the king, without it passing the move is often the best move there is
+    public boolean hasNonPawnMaterial(final ChessColor color) {
+        final int offset = pieceColorOffset(color);
+        return (this.pieceBoards[offset + WHITE_KNIGHT] | this.pieceBoards[offset + WHITE_BISHOP] |
+                this.pieceBoards[offset + WHITE_ROOK] | this.pieceBoards[offset + WHITE_QUEEN]) != 0;
+    }
+
+    // pieces of the given color attacking the square if the board held this occupancy
+    public long attackersTo(final int square, final long occupancy, final ChessColor by) {
+        return AttackTables.attackersTo(this.pieceBoards, square, occupancy, by);
+    }
+
+    public boolean isSquareAttacked(final int square, final ChessColor by) {
+        return AttackTables.attackersTo(this.pieceBoards, square, this.occupancy, by) != 0;
+    }
+
+    public int getKingSquare(final ChessColor color) {
+        return Long.numberOfTrailingZeros(this.pieceBoards[color.isWhite() ? WHITE_KING : BLACK_KING]);
+    }
+
+    public long getHash() {
+        return this.hash;
+    }
+
+    public int getHalfmoveClock() {
+        return this.halfmoveClock;
+    }
+
+    // for positions set up from a FEN, the positions before it are unknown
+    public void setHalfmoveClock(final int halfmoveClock) {
+        this.halfmoveClock = halfmoveClock;
+    }
+
+    public int getPly() {
+        return this.undoCount;
+    }
+
+    public ChessColor getSideToMove() {
+        return this.sideToMove;
+    }
+
+    public void setSideToMove(final ChessColor color) {
+        this.sideToMove = color;
+    }
+
+    public int getCastlingRights() {
+        return this.castlingRights;
+    }
+
+    public boolean hasCastlingRight(final int right) {
+        return (this.castlingRights & right) != 0;
+    }
+
+    public void setCastlingRights(final int castlingRights) {
+        this.castlingRights = castlingRights;
+    }
+
+    public int getEnPassantSquare() {
+        return this.enPassantSquare;
+    }
+
+    public void setEnPassantSquare(final int square) {
+        this.enPassantSquare = square;
+    }
+
+    public static int pieceColorOffset(final ChessColor color) {
+        return color.isWhite() ? WHITE_PAWN : BLACK_PAWN;
+    }
+
+    @Override
+    public String toString() {
+        final String pieceChars = "PNBRQKpnbrqk";
+        final StringBuilder builder = new StringBuilder();
+        for (int square = 0; square < BoardUtils.NUM_TILES; square++) {
+            final int pieceIndex = pieceAt(square);
+            builder.append(String.format("%3s", pieceIndex == NO_PIECE ? "-" : pieceChars.charAt(pieceIndex)));
+            if (square % 8 == 7) {
+                builder.append("\n");
+            }
+        }
+        return builder.toString();
+    }
+}
@@ -1,6 +1,7 @@
 package adri.chess.engine.board;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
@@ -25,6 +26,9 @@ public class Board {
     private final Tile[][] gameBoard;
     private final Collection<Piece> whitePieces;
     private final Collection<Piece> blackPieces;
+    private final long whiteOccupancy;
+    private final long blackOccupancy;
+    private final long[] pieceBoards; // indexed by BoardUtils.pieceIndex, for attack queries
 
     private final WhitePlayer whitePlayer;
     private final BlackPlayer blackPlayer;
@@ -32,22 +36,58 @@ public class Board {
 
     private final Pawn jumpedPawn;
     private final Pawn enPassantPawn;
+    private final long zobristKey;
+    private final int halfmoveClock; // plies since the last pawn move or capture
+    private final long[] repetitionKeys; // keys of the positions since then, oldest first, this one not included
 
     private Board(final Builder builder) {
-        this.gameBoard = createGameBoard();
+        this.gameBoard = createGameBoard(builder);
         this.whitePieces = calculateActivePieces(this.gameBoard, ChessColor.WHITE);
         this.blackPieces = calculateActivePieces(this.gameBoard, ChessColor.BLACK);
+        this.whiteOccupancy = calculateOccupancy(this.whitePieces);
+        this.blackOccupancy = calculateOccupancy(this.blackPieces);
+        this.pieceBoards = calculatePieceBoards(this.whitePieces, this.blackPieces);
 
-        this.jumpedPawn = Builder.jumpedPawn;
-        this.enPassantPawn = Builder.enPassantPawn;
+        this.jumpedPawn = builder.jumpedPawn;
+        this.enPassantPawn = builder.enPassantPawn;
 
-        final Collection<Move> whiteBaseLegalMoves = calculatePlayerLegalMoves(this.whitePieces);
-        final Collection<Move> blackBaseLegalMoves = calculatePlayerLegalMoves(this.blackPieces);
-
-        this.whitePlayer = new WhitePlayer(this, whiteBaseLegalMoves, blackBaseLegalMoves);
-        this.blackPlayer = new BlackPlayer(this, blackBaseLegalMoves, whiteBaseLegalMoves);
+        // players generate their moves lazily, building a board only lays out the pieces
+        this.whitePlayer = new WhitePlayer(this);
+        this.blackPlayer = new BlackPlayer(this);
 
         this.currentPlayer = builder.currentColor.choosePlayer(this.whitePlayer, this.blackPlayer);
+        // moves pass on an incrementally updated key, only boards set up from scratch hash every piece
+        this.zobristKey = builder.zobristKey != null ? builder.zobristKey : BoardUtils.computeFullHash(this);
+        this.halfmoveClock = builder.halfmoveClock;
+        this.repetitionKeys = builder.repetitionKeys;
+    }
+
+    public long getZobristKey() {
+        return this.zobristKey;
+    }
+
+    public int getHalfmoveClock() {
+        return this.halfmoveClock;
+    }
+
+    // shared with the boards built from this one, not to be modified
+    public long[] getRepetitionKeys() {
+        return this.repetitionKeys;
+    }
+
+    // the same position three times, with the same side to move each time
+    public boolean isThreefoldRepetition() {
+        int count = 1;
+        for (int i = this.repetitionKeys.length - 2; i >= 0; i -= 2) {
+            if (this.repetitionKeys[i] == this.zobristKey && ++count == 3) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public boolean isFiftyMoveDraw() {
+        return this.halfmoveClock >= 100;
     }
 
     public Pawn getJumpedPawn() {
@@ -66,6 +106,19 @@ public class Board {
         return this.whitePieces;
     }
 
+    public long getOccupancy() {
+        return this.whiteOccupancy | this.blackOccupancy;
+    }
+
+    public long getOccupancy(ChessColor color) {
+        return color.isWhite() ? this.whiteOccupancy : this.blackOccupancy;
+    }
+
+    // true if a piece of the given color attacks the square (rank * 8 + file)
+    public boolean isSquareAttacked(final int square, final ChessColor by) {
+        return AttackTables.attackersTo(this.pieceBoards, square, getOccupancy(), by) != 0;
+    }
+
     public Player getWhitePlayer() {
         return this.whitePlayer;
     }
@@ -98,17 +151,6 @@ public class Board {
     }
 
 
-    private Collection<Move> calculatePlayerLegalMoves(Collection<Piece> pieces) {
-        final List<Move> legalMoves = new ArrayList<>();
-        
-        for (Piece piece : pieces) {
-            Collection<Move> pieceMoves = piece.calculateLegalMoves(this);
-            legalMoves.addAll(pieceMoves);
-        }
-
-        return Collections.unmodifiableList(legalMoves);
-    }
-
     private static Collection<Piece> calculateActivePieces(final Tile[][] gameBoard, ChessColor color) {
         List<Piece> activePieces = new ArrayList<>();
 
@@ -124,16 +166,36 @@ public class Board {
         return Collections.unmodifiableList(activePieces);
     }
 
+    // one bit per occupied square, bit index = rank * 8 + file
+    private static long calculateOccupancy(final Collection<Piece> pieces) {
+        long occupancy = 0L;
+        for (Piece piece : pieces) {
+            occupancy |= 1L << BoardUtils.tileCoordToInt(piece.getPiecePos());
+        }
+        return occupancy;
+    }
+
+    private static long[] calculatePieceBoards(final Collection<Piece> whitePieces, final Collection<Piece> blackPieces) {
+        final long[] pieceBoards = new long[12];
+        for (Piece piece : whitePieces) {
+            pieceBoards[BoardUtils.pieceIndex(piece)] |= 1L << BoardUtils.tileCoordToInt(piece.getPiecePos());
+        }
+        for (Piece piece : blackPieces) {
+            pieceBoards[BoardUtils.pieceIndex(piece)] |= 1L << BoardUtils.tileCoordToInt(piece.getPiecePos());
+        }
+        return pieceBoards;
+    }
+
     public Tile getTile(int[] tileCoord) {
         return gameBoard[tileCoord[0]][tileCoord[1]];
     }
 
-    private static Tile[][] createGameBoard() {
+    private static Tile[][] createGameBoard(final Builder builder) {
         Tile[][] tiles = new Tile[BoardUtils.NUM_RANKS][BoardUtils.NUM_FILES];
         for (int rank = 0; rank < BoardUtils.NUM_RANKS; rank++) {
             for (int file = 0; file < BoardUtils.NUM_FILES; file++) {
                 int[] newPos = {rank, file};
-                tiles[rank][file] = Tile.createTile(newPos, Builder.boardConfigMap.get(rank * 8 + file));
+                tiles[rank][file] = Tile.createTile(newPos, builder.boardConfigMap.get(rank * 8 + file));
             }
         }
         
@@ -244,41 +306,46 @@ public class Board {
     public static class Builder {
 
         // Map tile id to piece on tile
-        private static Map<Integer, Piece> boardConfigMap;
+        private final Map<Integer, Piece> boardConfigMap;
         private ChessColor currentColor;
-        private static Pawn jumpedPawn;
-        private static Pawn enPassantPawn;
+        private Pawn jumpedPawn;
+        private Pawn enPassantPawn;
+        private Long zobristKey;
+        private int halfmoveClock;
+        private long[] repetitionKeys;
 
         public Builder() {
-            boardConfigMap = new HashMap<>();
+            this.boardConfigMap = new HashMap<>();
+            this.halfmoveClock = 0;
+            this.repetitionKeys = new long[0];
         }
 
         public Builder setPiece(Piece piece) {
-            boardConfigMap.put(piece.getPiecePos()[0] * 8 + piece.getPiecePos()[1], piece);
+            this.boardConfigMap.put(piece.getPiecePos()[0] * 8 + piece.getPiecePos()[1], piece);
             return this;
         }
 
         public Builder setPiece(Piece piece, int[] pos) {
-            boardConfigMap.put(pos[0] * 8 + pos[1], piece);
+            this.boardConfigMap.put(pos[0] * 8 + pos[1], piece);
             return this;
         }
 
         public Builder removePiece(Piece piece) {
-            boardConfigMap.remove(piece.getPiecePos()[0]*8 + piece.getPiecePos()[1]);
+            this.boardConfigMap.remove(piece.getPiecePos()[0]*8 + piece.getPiecePos()[1]);
             return this;
         }
 
         public Builder removePiece(int[] pos) {
-            boardConfigMap.remove(pos[0]*8 + pos[1]);
+            this.boardConfigMap.remove(pos[0]*8 + pos[1]);
             return this;
         }
 
         public Pawn getJumpedPawn() {
-            return jumpedPawn;
+            return this.jumpedPawn;
         }
 
         public Pawn getEnPassantPawn() {
-            return enPassantPawn;
+            return this.enPassantPawn;
         }
 
         public Builder setCurrentColor(ChessColor color) {
@@ -287,11 +354,36 @@ public class Board {
         }
 
         public void setJumpedPawn(Pawn movedPawn) {
-            jumpedPawn = movedPawn;
+            this.jumpedPawn = movedPawn;
         }
 
         public void setEnPassantPawn(Pawn movedPawn) {
-            enPassantPawn = movedPawn;
+            this.enPassantPawn = movedPawn;
+        }
+
+        public void setZobristKey(long zobristKey) {
+            this.zobristKey = zobristKey;
+        }
+
+        public void setHalfmoveClock(int halfmoveClock) {
+            this.halfmoveClock = halfmoveClock;
+        }
+
+        public void setRepetitionKeys(long[] repetitionKeys) {
+            this.repetitionKeys = repetitionKeys;
+        }
+
+        // carries the clock and the keys over from the board a move is made on,
+        // a pawn move or capture can't be undone so nothing before it can repeat
+        public void setHistory(Board previous, boolean irreversible) {
+            if (irreversible) {
+                this.halfmoveClock = 0;
+                this.repetitionKeys = new long[0];
+            } else {
+                this.halfmoveClock = previous.halfmoveClock + 1;
+                this.repetitionKeys = Arrays.copyOf(previous.repetitionKeys, previous.repetitionKeys.length + 1);
+                this.repetitionKeys[previous.repetitionKeys.length] = previous.zobristKey;
+            }
         }
 
         public Board build() {
@@ -1,7 +1,7 @@
 package adri.chess.engine.board;
 
 import adri.chess.engine.ChessColor;
-import adri.chess.engine.pieces.King;
+import adri.chess.engine.pieces.Pawn;
 import adri.chess.engine.pieces.Piece;
 
 public class BoardUtils {
@@ -11,11 +11,14 @@ public class BoardUtils {
     public static final int NUM_FILES = 8;
 
     // Zobrist table
-    public static long[][] ZOBRIST_PIECES = new long[12][64];
+    public static final long[][] ZOBRIST_PIECES = new long[12][64];
     public static long ZOBRIST_SIDE;
-    public static long[] ZOBRIST_CASTLING = new long[4];
-    public static long[] ZOBRIST_ENPASSANT = new long[8];
+    public static final long[] ZOBRIST_CASTLING = new long[4];
+    public static final long[] ZOBRIST_ENPASSANT = new long[8];
 
+    static {
+        initZobrist();
+    }
 
     private BoardUtils() {
         throw new RuntimeException("Cannot instantiate BoardUtils");
@@ -25,6 +28,10 @@ public class BoardUtils {
         return coord[0] * 8 + coord[1];
     }
 
+    public static int[] intToTileCoord(int square) {
+        return new int[]{square / 8, square % 8};
+    }
+
     public static boolean validTileCoordinate(int[] tileCoord) {
         final int coordRank = tileCoord[0];
         final int coordFile = tileCoord[1];
@@ -40,7 +47,7 @@ public class BoardUtils {
     }
 
     // Generated with AI
-    public void initZobrist() {
+    private static void initZobrist() {
         java.util.Random rng = new java.util.Random(20240115);
 
         for (int p = 0; p < 12; p++) {
@@ -76,89 +83,69 @@ public class BoardUtils {
         return piece.getPieceColor().isWhite() ? type : type + 6;
     }
 
-    public static long computeFullHash(Board board) {
+    // same key BitBoard keeps for the position: pieces, side to move, castling rights and en passant file
+    public static long computeFullHash(final Board board) {
         long hash = 0;
-        for (int rank = 0; rank < NUM_RANKS; rank++) {
-            for (int file = 0; file < NUM_FILES; file++) {
-                Piece piece = board.getTile(new int[]{rank, file}).getPiece();
-                if (piece != null) {
-                    int square = rank * 8 + file;
-                    hash ^= ZOBRIST_PIECES[pieceIndex(piece)][square];
-                }
-            }
+        for (final Piece piece : board.getWhitePieces()) {
+            hash ^= ZOBRIST_PIECES[pieceIndex(piece)][tileCoordToInt(piece.getPiecePos())];
+        }
+        for (final Piece piece : board.getBlackPieces()) {
+            hash ^= ZOBRIST_PIECES[pieceIndex(piece)][tileCoordToInt(piece.getPiecePos())];
         }
 
         if (board.getCurrentPlayer().getColor().isWhite()) {
             hash ^= ZOBRIST_SIDE;
         }
-
-        // Castling
-        King currPlayerKing = board.getCurrentPlayer().getPlayerKing();
-        King oppPlayerKing = board.getCurrentPlayer().getOpponent().getPlayerKing();
-        if (currPlayerKing.isKingSideCastleAllowed()) {
-            hash ^= ZOBRIST_CASTLING[0];
-        }
-        if (currPlayerKing.isQueenSideCastleAllowed()) {
-            hash ^= ZOBRIST_CASTLING[1];
-        }
-        if (oppPlayerKing.isKingSideCastleAllowed()) {
-            hash ^= ZOBRIST_CASTLING[2];
-        }
-        if (oppPlayerKing.isQueenSideCastleAllowed()) {
-            hash ^= ZOBRIST_CASTLING[3];
-        }
-
-        //TODO en passant
-        return hash;
+        return hash ^ BitBoard.castlingHash(BitBoard.calculateCastlingRights(board)) ^ enPassantHash(board);
     }
 
-    public static long updateHash(
-        long hash,
-        Move move
-        //boolean[] oldCastling, // [wK, wQ, bK, bQ]
-        /* boolean[] newCastling */)
-    {
-        Board board = move.board; // board BEFORE the move
-
-        Piece moved = move.movedPiece;
-
-        int movedIdx = pieceIndex(moved);
-
-        // 1. XOR out the piece from its old square
-        hash ^= ZOBRIST_PIECES[movedIdx][tileCoordToInt(move.getCurrentCoord())];
-
-        // 2. XOR in the piece on its new square
-        hash ^= ZOBRIST_PIECES[movedIdx][tileCoordToInt(move.getDestinationCoord())];
+    // key of the position after the move, from the key of the board the move was made on
+    public static long updateHash(final long hash, final Move move) {
+        final Board board = move.getBoard(); // board BEFORE the move
+        final int from = tileCoordToInt(move.getCurrentCoord());
+        final int to = tileCoordToInt(move.getDestinationCoord());
+        final int movedIdx = pieceIndex(move.getMovedPiece());
+
+        // 1. Move the piece, or swap the pawn for its promotion piece
+        long key = hash ^ ZOBRIST_PIECES[movedIdx][from];
+        if (move instanceof Move.PawnPromotion) {
+            key ^= ZOBRIST_PIECES[pieceIndex(((Move.PawnPromotion) move).getPromotionPiece())][to];
+        } else {
+            key ^= ZOBRIST_PIECES[movedIdx][to];
+        }
 
-        // 3. Handle captures
-        Piece captured = board.getTile(move.destinationCoord).getPiece();
+        // 2. Captures, en passant takes a pawn that isn't on the destination tile
+        final Piece captured = move.getCapturedPiece();
         if (captured != null) {
-            int captureIdx = pieceIndex(captured);
-            hash ^= ZOBRIST_PIECES[captureIdx][tileCoordToInt(move.getDestinationCoord())];
+            key ^= ZOBRIST_PIECES[pieceIndex(captured)][tileCoordToInt(captured.getPiecePos())];
         }
 
-        // 4. Promotions
-        if (move.isPromotion()) {
-            int pawnIdx = movedIdx;
-            int promoIdx = pieceIndex(move.getMovedPiece().getPromotionPiece());
+        // 3. The rook hops over the king when castling
+        if (move instanceof Move.Castle) {
+            final Move.Castle castle = (Move.Castle) move;
+            final int rookIdx = pieceIndex(castle.getCastleRook());
+            key ^= ZOBRIST_PIECES[rookIdx][tileCoordToInt(castle.getCastleRookPos())] ^
+                   ZOBRIST_PIECES[rookIdx][tileCoordToInt(castle.getCastleRookDestination())];
+        }
 
-            // remove pawn at destination
-            hash ^= ZOBRIST_PIECES[pawnIdx][tileCoordToInt(move.getDestinationCoord())];
-            // add promoted piece
-            hash ^= ZOBRIST_PIECES[promoIdx][tileCoordToInt(move.getDestinationCoord())];
+        // 4. Castling rights and en passant file, old ones out and new ones in
+        final int castlingRights = BitBoard.calculateCastlingRights(board);
+        key ^= BitBoard.castlingHash(castlingRights) ^ BitBoard.castlingHash(BitBoard.updateCastlingRights(castlingRights, from, to));
+        key ^= enPassantHash(board);
+        if (move instanceof Move.PawnJump) {
+            key ^= ZOBRIST_ENPASSANT[to % 8];
         }
 
-        // TODO I'll implement this later, rn this is a bit too much to deal with for testing
-        /*// 5. Castling rights changes
-        for (int i = 0; i < 4; i++) {
-            if (oldCastling[i] != newCastling[i]) {
-                hash ^= ZOBRIST_CASTLING[i];
-            }
-        }*/
+        // 5. Side to move flips
+        return key ^ ZOBRIST_SIDE;
+    }
 
-        // Side to move flips
-        hash ^= ZOBRIST_SIDE;
-        System.out.println(hash);
-        return hash;
+    // the file a pawn can be taken en passant on, if the last move was a pawn jump
+    private static long enPassantHash(final Board board) {
+        final Pawn jumpedPawn = board.getJumpedPawn();
+        if (jumpedPawn == null || jumpedPawn.getPieceColor() == board.getCurrentPlayer().getColor()) {
+            return 0L;
+        }
+        return ZOBRIST_ENPASSANT[jumpedPawn.getPiecePos()[1]];
     }
 }
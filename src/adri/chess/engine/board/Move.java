@@ -1,9 +1,14 @@
 package adri.chess.engine.board;
 
+import adri.chess.engine.ChessColor;
 import adri.chess.engine.board.Board.Builder;
+import adri.chess.engine.pieces.Bishop;
+import adri.chess.engine.pieces.Knight;
 import adri.chess.engine.pieces.Pawn;
 import adri.chess.engine.pieces.Piece;
-import adri.chess.engine.pieces.Rook;;
+import adri.chess.engine.pieces.Piece.PieceType;
+import adri.chess.engine.pieces.Queen;
+import adri.chess.engine.pieces.Rook;
 
 public class Move {
     
@@ -68,9 +73,16 @@ public class Move {
         builder.setPiece(getMovedPiece().movePiece(this));
         builder.setJumpedPawn(null);
         builder.setCurrentColor(this.board.getCurrentPlayer().getOpponent().getColor());
+        setPositionKeys(builder);
         return builder.build();
     }
 
+    // the new board's key, and the keys of the positions before it that it could still repeat
+    protected void setPositionKeys(final Builder builder) {
+        builder.setZobristKey(BoardUtils.updateHash(this.board.getZobristKey(), this));
+        builder.setHistory(this.board, this.movedPiece.getPieceType() == PieceType.PAWN || isCapture());
+    }
+
     public boolean isCapture() {
         return false;
     }
@@ -139,21 +151,48 @@ public class Move {
 
         final Move decoratedMove;
         final Pawn promotedPawn;
+        final PieceType promotionType;
 
         public PawnPromotion(final Move decoratedMove) {
+            this(decoratedMove, PieceType.QUEEN);
+        }
+
+        public PawnPromotion(final Move decoratedMove, final PieceType promotionType) {
             super(decoratedMove.getBoard(), decoratedMove.getMovedPiece(), decoratedMove.getDestinationCoord());
             this.decoratedMove = decoratedMove;
             this.promotedPawn = (Pawn) decoratedMove.getMovedPiece();
+            this.promotionType = promotionType;
+        }
+
+        public PieceType getPromotionType() {
+            return this.promotionType;
+        }
+
+        // the piece the pawn turns into, already standing on the destination tile
+        public Piece getPromotionPiece() {
+            final int[] destination = this.getDestinationCoord();
+            final ChessColor color = this.promotedPawn.getPieceColor();
+            switch (this.promotionType) {
+                case KNIGHT:
+                    return new Knight(destination, color);
+                case BISHOP:
+                    return new Bishop(destination, color);
+                case ROOK:
+                    return new Rook(destination, color, false);
+                default:
+                    return new Queen(destination, color);
+            }
         }
 
         @Override
         public int hashCode() {
-            return decoratedMove.hashCode() + (31 * promotedPawn.hashCode());
+            return decoratedMove.hashCode() + (31 * promotedPawn.hashCode()) + promotionType.hashCode();
         }
 
         @Override
         public boolean equals(Object other) {
-            return other instanceof PawnPromotion && this.decoratedMove.equals(other);
+            return other instanceof PawnPromotion && this.decoratedMove.equals(((PawnPromotion) other).decoratedMove) &&
+                   this.promotionType == ((PawnPromotion) other).promotionType;
         }
 
         @Override
@@ -170,10 +209,11 @@ public class Move {
                 builder.setPiece(piece);
             }
 
-            // gets the promoted piece instead of a pawn, and moves it
-            builder.setPiece(this.promotedPawn.getPromotionPiece().movePiece(this.decoratedMove));
+            // gets the promoted piece instead of a pawn
+            builder.setPiece(getPromotionPiece());
             // don't do getOpponent because decoratedMove execute() already does
             builder.setCurrentColor(updateBoard.getCurrentPlayer().getColor());
+            setPositionKeys(builder);
             return builder.build();
         }
 
@@ -189,7 +229,7 @@ public class Move {
 
         @Override
         public String toString() {
-            return this.decoratedMove.toString() + "=Q";
+            return this.decoratedMove.toString() + "=" + this.promotionType.toString();
         }
 
         @Override
@@ -387,6 +427,7 @@ public class Move {
             builder.setJumpedPawn(null);
             builder.setEnPassantPawn((Pawn) this.getMovedPiece());
             builder.setCurrentColor(this.board.getCurrentPlayer().getOpponent().getColor());
+            setPositionKeys(builder);
             return builder.build();
         }
     }
@@ -416,6 +457,7 @@ public class Move {
             builder.setJumpedPawn(movedPawn);
             builder.setEnPassantPawn(null);
             builder.setCurrentColor(this.board.getCurrentPlayer().getOpponent().getColor());
+            setPositionKeys(builder);
             return builder.build();
         }
 
@@ -463,6 +505,14 @@ public class Move {
             return this.castleRook;
         }
 
+        public int[] getCastleRookPos() {
+            return this.castleRookPos;
+        }
+
+        public int[] getCastleRookDestination() {
+            return this.castleRookDestination;
+        }
+
         @Override
         public boolean isCastlingMove() {
             return true;
@@ -502,6 +552,7 @@ public class Move {
             builder.setJumpedPawn(null);
             builder.setEnPassantPawn(null);
             builder.setCurrentColor(this.board.getCurrentPlayer().getOpponent().getColor());
+            setPositionKeys(builder);
             return builder.build();
         }
     }
@@ -0,0 +1,254 @@
+package adri.chess.engine.board;
+
+import adri.chess.engine.ChessColor;
+
+// Generates strictly legal moves for a BitBoard. Checkers and pinned pieces are worked
+// out once per position, so a move never has to be played to find out whether it
+// leaves the king in check.
+public class MoveGenerator {
+
+    private static final long WHITE_PAWN_START = 0x00FF000000000000L; // rank 2
+    private static final long BLACK_PAWN_START = 0x000000000000FF00L; // rank 7
+    private static final long PROMOTION_RANKS = 0xFF000000000000FFL; // ranks 1 and 8
+
+    private MoveGenerator() {
+        throw new RuntimeException("Cannot instantiate MoveGenerator");
+    }
+
+    public static void generateLegalMoves(final BitBoard position, final MoveList moves) {
+        generateMoves(position, moves, false);
+    }
+
+    // legal captures (en passant included) and queen promotions, the moves a quiescence search looks at
+    public static void generateCaptures(final BitBoard position, final MoveList moves) {
+        generateMoves(position, moves, true);
+    }
+
+    private static void generateMoves(final BitBoard position, final MoveList moves, final boolean capturesOnly) {
+        moves.clear();
+        final ChessColor us = position.getSideToMove();
+        final ChessColor them = us.getOpposite();
+        final int offset = BitBoard.pieceColorOffset(us);
+        final long own = position.getOccupancy(us);
+        final long enemy = position.getOccupancy(them);
+        final long occupancy = position.getOccupancy();
+        final int kingSquare = position.getKingSquare(us);
+        final long targetMask = capturesOnly ? enemy : -1L;
+
+        // the king may not step onto an attacked square, and may not step back along a checking ray
+        final long occupancyWithoutKing = occupancy & ~(1L << kingSquare);
+        long kingTargets = AttackTables.kingAttacks(kingSquare) & ~own & targetMask;
+        while (kingTargets != 0) {
+            final int to = Long.numberOfTrailingZeros(kingTargets);
+            kingTargets &= kingTargets - 1;
+            if (position.attackersTo(to, occupancyWithoutKing, them) == 0) {
+                moves.add(PackedMove.create(kingSquare, to, (enemy & (1L << to)) != 0 ? PackedMove.CAPTURE : PackedMove.QUIET));
+            }
+        }
+
+        final long checkers = position.attackersTo(kingSquare, occupancy, them);
+        if (Long.bitCount(checkers) > 1) {
+            // double check, only the king can move
+            return;
+        }
+
+        // squares that capture the checker or block the check
+        long checkMask = -1L;
+        if (checkers != 0) {
+            checkMask = checkers | AttackTables.between(kingSquare, Long.numberOfTrailingZeros(checkers));
+        } else if (!capturesOnly) {
+            generateCastles(position, moves, us, occupancy);
+        }
+
+        final long pinned = calculatePinnedPieces(position, kingSquare, us, occupancy);
+
+        // a pinned knight can never move
+        long knights = position.getPieceBoard(offset + BitBoard.WHITE_KNIGHT) & ~pinned;
+        while (knights != 0) {
+            final int from = Long.numberOfTrailingZeros(knights);
+            knights &= knights - 1;
+            addMoves(moves, from, AttackTables.knightAttacks(from) & ~own & checkMask & targetMask, enemy);
+        }
+
+        final long queens = position.getPieceBoard(offset + BitBoard.WHITE_QUEEN);
+        long diagonalSliders = position.getPieceBoard(offset + BitBoard.WHITE_BISHOP) | queens;
+        while (diagonalSliders != 0) {
+            final int from = Long.numberOfTrailingZeros(diagonalSliders);
+            diagonalSliders &= diagonalSliders - 1;
+            final long targets = AttackTables.bishopAttacks(from, occupancy) & ~own & checkMask & targetMask;
+            addMoves(moves, from, targets & pinRay(pinned, kingSquare, from), enemy);
+        }
+
+        long straightSliders = position.getPieceBoard(offset + BitBoard.WHITE_ROOK) | queens;
+        while (straightSliders != 0) {
+            final int from = Long.numberOfTrailingZeros(straightSliders);
+            straightSliders &= straightSliders - 1;
+            final long targets = AttackTables.rookAttacks(from, occupancy) & ~own & checkMask & targetMask;
+            addMoves(moves, from, targets & pinRay(pinned, kingSquare, from), enemy);
+        }
+
+        generatePawnMoves(position, moves, us, kingSquare, pinned, checkMask, enemy, occupancy, capturesOnly);
+    }
+
+    private static void generatePawnMoves(final BitBoard position, final MoveList moves, final ChessColor us,
+                                          final int kingSquare, final long pinned, final long checkMask,
+                                          final long enemy, final long occupancy, final boolean capturesOnly) {
+        final int forward = us.isWhite() ? -8 : 8;
+        final long startRank = us.isWhite() ? WHITE_PAWN_START : BLACK_PAWN_START;
+        final int enPassantSquare = position.getEnPassantSquare();
+
+        long pawns = position.getPieceBoard(BitBoard.pieceColorOffset(us) + BitBoard.WHITE_PAWN);
+        while (pawns != 0) {
+            final int from = Long.numberOfTrailingZeros(pawns);
+            pawns &= pawns - 1;
+            final long allowed = checkMask & pinRay(pinned, kingSquare, from);
+
+            final int to = from + forward;
+            if ((occupancy & (1L << to)) == 0) {
+                // the only quiet pawn moves worth a capture search are the ones that promote
+                if ((allowed & (1L << to)) != 0 && (!capturesOnly || (PROMOTION_RANKS & (1L << to)) != 0)) {
+                    addPawnMove(moves, from, to, PackedMove.QUIET, capturesOnly);
+                }
+                final int jumpTo = to + forward;
+                if (!capturesOnly && (startRank & (1L << from)) != 0 && (occupancy & (1L << jumpTo)) == 0 && (allowed & (1L << jumpTo)) != 0) {
+                    moves.add(PackedMove.create(from, jumpTo, PackedMove.DOUBLE_PAWN_PUSH));
+                }
+            }
+
+            final long attacks = AttackTables.pawnAttacks(from, us);
+            long captures = attacks & enemy & allowed;
+            while (captures != 0) {
+                final int captureTo = Long.numberOfTrailingZeros(captures);
+                captures &= captures - 1;
+                addPawnMove(moves, from, captureTo, PackedMove.CAPTURE, capturesOnly);
+            }
+
+            if (enPassantSquare != BitBoard.NO_SQUARE && (attacks & (1L << enPassantSquare)) != 0 &&
+                isLegalEnPassant(position, us, kingSquare, from, enPassantSquare, occupancy)) {
+                moves.add(PackedMove.create(from, enPassantSquare, PackedMove.EN_PASSANT));
+            }
+        }
+    }
+
+    // En passant takes two pieces off one rank at once, so rather than special casing
+    // the pins it can uncover, look at the king's attackers with both pawns gone.
+    private static boolean isLegalEnPassant(final BitBoard position, final ChessColor us, final int kingSquare,
+                                            final int from, final int to, final long occupancy) {
+        final int capturedSquare = to + 8 * us.getOppositeDirection();
+        final long occupancyAfter = (occupancy & ~(1L << from) & ~(1L << capturedSquare)) | (1L << to);
+        return position.attackersTo(kingSquare, occupancyAfter, us.getOpposite()) == 0;
+    }
+
+    private static void generateCastles(final BitBoard position, final MoveList moves, final ChessColor us, final long occupancy) {
+        final ChessColor them = us.getOpposite();
+        final int kingSquare = us.isWhite() ? 60 : 4;
+        final long rooks = position.getPieceBoard(BitBoard.pieceColorOffset(us) + BitBoard.WHITE_ROOK);
+        final int kingSide = us.isWhite() ? BitBoard.WHITE_KING_SIDE : BitBoard.BLACK_KING_SIDE;
+        final int queenSide = us.isWhite() ? BitBoard.WHITE_QUEEN_SIDE : BitBoard.BLACK_QUEEN_SIDE;
+
+        // the king may not pass through or land on an attacked square
+        if (position.hasCastlingRight(kingSide) && (rooks & (1L << (kingSquare + 3))) != 0 &&
+            (occupancy & AttackTables.between(kingSquare, kingSquare + 3)) == 0 &&
+            !position.isSquareAttacked(kingSquare + 1, them) && !position.isSquareAttacked(kingSquare + 2, them)) {
+            moves.add(PackedMove.create(kingSquare, kingSquare + 2, PackedMove.KING_CASTLE));
+        }
+        if (position.hasCastlingRight(queenSide) && (rooks & (1L << (kingSquare - 4))) != 0 &&
+            (occupancy & AttackTables.between(kingSquare, kingSquare - 4)) == 0 &&
+            !position.isSquareAttacked(kingSquare - 1, them) && !position.isSquareAttacked(kingSquare - 2, them)) {
+            moves.add(PackedMove.create(kingSquare, kingSquare - 2, PackedMove.QUEEN_CASTLE));
+        }
+    }
+
+    // own pieces standing alone between the king and an enemy slider
+    private static long calculatePinnedPieces(final BitBoard position, final int kingSquare, final ChessColor us, final long occupancy) {
+        final int enemyOffset = BitBoard.pieceColorOffset(us.getOpposite());
+        final long enemy = position.getOccupancy(us.getOpposite());
+        final long enemyQueens = position.getPieceBoard(enemyOffset + BitBoard.WHITE_QUEEN);
+
+        // enemy sliders that would see the king if none of our pieces were in the way
+        long snipers = (AttackTables.rookAttacks(kingSquare, enemy) &
+                        (position.getPieceBoard(enemyOffset + BitBoard.WHITE_ROOK) | enemyQueens)) |
+                       (AttackTables.bishopAttacks(kingSquare, enemy) &
+                        (position.getPieceBoard(enemyOffset + BitBoard.WHITE_BISHOP) | enemyQueens));
+
+        long pinned = 0L;
+        while (snipers != 0) {
+            final int sniper = Long.numberOfTrailingZeros(snipers);
+            snipers &= snipers - 1;
+            final long blockers = AttackTables.between(kingSquare, sniper) & occupancy;
+            if (Long.bitCount(blockers) == 1) {
+                pinned |= blockers & position.getOccupancy(us);
+            }
+        }
+        return pinned;
+    }
+
+    // a pinned piece may only move along the line between its king and the pinning piece
+    private static long pinRay(final long pinned, final int kingSquare, final int from) {
+        return (pinned & (1L << from)) != 0 ? AttackTables.line(kingSquare, from) : -1L;
+    }
+
+    private static void addMoves(final MoveList moves, final int from, long targets, final long enemy) {
+        while (targets != 0) {
+            final int to = Long.numberOfTrailingZeros(targets);
+            targets &= targets - 1;
+            moves.add(PackedMove.create(from, to, (enemy & (1L << to)) != 0 ? PackedMove.CAPTURE : PackedMove.QUIET));
+        }
+    }
+
+    private static void addPawnMove(final MoveList moves, final int from, final int to, final int flags,
+                                    final boolean queenOnly) {
+        if ((PROMOTION_RANKS & (1L << to)) != 0) {
+            moves.add(PackedMove.create(from, to, flags | PackedMove.QUEEN_PROMOTION));
+            if (queenOnly) {
+                return;
+            }
+            moves.add(PackedMove.create(from, to, flags | PackedMove.ROOK_PROMOTION));
+            moves.add(PackedMove.create(from, to, flags | PackedMove.BISHOP_PROMOTION));
+            moves.add(PackedMove.create(from, to, flags | PackedMove.KNIGHT_PROMOTION));
+        } else {
+            moves.add(PackedMove.create(from, to, flags));
+        }
+    }
+
+    // true if the side to move's king is attacked
+    public static boolean isInCheck(final BitBoard position) {
+        final ChessColor us = position.getSideToMove();
+        return position.isSquareAttacked(position.getKingSquare(us), us.getOpposite());
+    }
+
+    // pseudo mobility for evaluation: squares each piece attacks that aren't held by its own side
+    public static int countMobility(final BitBoard position, final ChessColor color) {
+        final int offset = BitBoard.pieceColorOffset(color);
+        final long own = position.getOccupancy(color);
+        final long occupancy = position.getOccupancy();
+        int mobility = 0;
+
+        long knights = position.getPieceBoard(offset + BitBoard.WHITE_KNIGHT);
+        while (knights != 0) {
+            mobility += Long.bitCount(AttackTables.knightAttacks(Long.numberOfTrailingZeros(knights)) & ~own);
+            knights &= knights - 1;
+        }
+        long bishops = position.getPieceBoard(offset + BitBoard.WHITE_BISHOP);
+        while (bishops != 0) {
+            mobility += Long.bitCount(AttackTables.bishopAttacks(Long.numberOfTrailingZeros(bishops), occupancy) & ~own);
+            bishops &= bishops - 1;
+        }
+        long rooks = position.getPieceBoard(offset + BitBoard.WHITE_ROOK);
+        while (rooks != 0) {
+            mobility += Long.bitCount(AttackTables.rookAttacks(Long.numberOfTrailingZeros(rooks), occupancy) & ~own);
+            rooks &= rooks - 1;
+        }
+        long queens = position.getPieceBoard(offset + BitBoard.WHITE_QUEEN);
+        while (queens != 0) {
+            mobility += Long.bitCount(AttackTables.queenAttacks(Long.numberOfTrailingZeros(queens), occupancy) & ~own);
+            queens &= queens - 1;
+        }
+        mobility += Long.bitCount(AttackTables.kingAttacks(position.getKingSquare(color)) & ~own);
+
+        // single pawn pushes
+        final long pawns = position.getPieceBoard(offset + BitBoard.WHITE_PAWN);
+        mobility += Long.bitCount((color.isWhite() ? pawns >>> 8 : pawns << 8) & ~occupancy);
+        return mobility;
+    }
+}
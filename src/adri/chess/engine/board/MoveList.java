@@ -0,0 +1,76 @@
+package adri.chess.engine.board;
+
+// Reusable list of packed moves (see PackedMove) with a score per move for ordering.
+// The search keeps one list per ply and clears it instead of allocating a new one.
+public class MoveList {
+
+    public static final int MAX_MOVES = 256; // 218 is the most legal moves in any known position
+
+    private final int[] moves;
+    private final int[] scores;
+    private int size;
+
+    public MoveList() {
+        this.moves = new int[MAX_MOVES];
+        this.scores = new int[MAX_MOVES];
+        this.size = 0;
+    }
+
+    public void add(final int move) {
+        this.moves[this.size] = move;
+        this.scores[this.size] = 0;
+        this.size++;
+    }
+
+    public int get(final int index) {
+        return this.moves[index];
+    }
+
+    public int getScore(final int index) {
+        return this.scores[index];
+    }
+
+    public void setScore(final int index, final int score) {
+        this.scores[index] = score;
+    }
+
+    public int size() {
+        return this.size;
+    }
+
+    public boolean isEmpty() {
+        return this.size == 0;
+    }
+
+    public void clear() {
+        this.size = 0;
+    }
+
+    public boolean contains(final int move) {
+        for (int i = 0; i < this.size; i++) {
+            if (this.moves[i] == move) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Moves the highest scored move at or after startIndex to startIndex and returns it.
+    // Called once per index, this is a lazy selection sort that stops as soon as a cutoff happens.
+    public int pickBest(final int startIndex) {
+        int bestIndex = startIndex;
+        for (int i = startIndex + 1; i < this.size; i++) {
+            if (this.scores[i] > this.scores[bestIndex]) {
+                bestIndex = i;
+            }
+        }
+
+        final int move = this.moves[bestIndex];
+        final int score = this.scores[bestIndex];
+        this.moves[bestIndex] = this.moves[startIndex];
+        this.scores[bestIndex] = this.scores[startIndex];
+        this.moves[startIndex] = move;
+        this.scores[startIndex] = score;
+        return move;
+    }
+}
@@ -0,0 +1,133 @@
+package adri.chess.engine.board;
+
+import adri.chess.engine.ChessColor;
+import adri.chess.engine.board.Move.EnPassantCapture;
+import adri.chess.engine.board.Move.KingSideCastle;
+import adri.chess.engine.board.Move.MoveFactory;
+import adri.chess.engine.board.Move.PawnJump;
+import adri.chess.engine.board.Move.PawnPromotion;
+import adri.chess.engine.board.Move.QueenSideCastle;
+import adri.chess.engine.pieces.Piece.PieceType;
+
+// Moves packed into the low 16 bits of an int, for the search and BitBoard:
+//   bits 0-5   from square
+//   bits 6-11  to square
+//   bits 12-15 flags (capture bit 4, promotion bit 8, promotion piece in the low two bits)
+public class PackedMove {
+
+    public static final int NONE = 0;
+
+    public static final int QUIET = 0;
+    public static final int DOUBLE_PAWN_PUSH = 1;
+    public static final int KING_CASTLE = 2;
+    public static final int QUEEN_CASTLE = 3;
+    public static final int CAPTURE = 4;
+    public static final int EN_PASSANT = 5;
+    public static final int KNIGHT_PROMOTION = 8;
+    public static final int BISHOP_PROMOTION = 9;
+    public static final int ROOK_PROMOTION = 10;
+    public static final int QUEEN_PROMOTION = 11;
+    public static final int KNIGHT_PROMOTION_CAPTURE = 12;
+    public static final int BISHOP_PROMOTION_CAPTURE = 13;
+    public static final int ROOK_PROMOTION_CAPTURE = 14;
+    public static final int QUEEN_PROMOTION_CAPTURE = 15;
+
+    private PackedMove() {
+        throw new RuntimeException("Cannot instantiate PackedMove");
+    }
+
+    public static int create(final int from, final int to, final int flags) {
+        return from | to << 6 | flags << 12;
+    }
+
+    public static int getFrom(final int move) {
+        return move & 0x3F;
+    }
+
+    public static int getTo(final int move) {
+        return (move >>> 6) & 0x3F;
+    }
+
+    public static int getFlags(final int move) {
+        return (move >>> 12) & 0xF;
+    }
+
+    public static boolean isCapture(final int move) {
+        return (getFlags(move) & CAPTURE) != 0;
+    }
+
+    public static boolean isPromotion(final int move) {
+        return (getFlags(move) & 8) != 0;
+    }
+
+    public static boolean isCastle(final int move) {
+        final int flags = getFlags(move);
+        return flags == KING_CASTLE || flags == QUEEN_CASTLE;
+    }
+
+    // piece index (see BitBoard) a promoting pawn of the given color turns into, or BitBoard.NO_PIECE
+    public static int getPromotionPiece(final int move, final ChessColor color) {
+        if (!isPromotion(move)) {
+            return BitBoard.NO_PIECE;
+        }
+        return BitBoard.pieceColorOffset(color) + BitBoard.WHITE_KNIGHT + (getFlags(move) & 3);
+    }
+
+    public static int fromMove(final Move move) {
+        final int from = BoardUtils.tileCoordToInt(move.getCurrentCoord());
+        final int to = BoardUtils.tileCoordToInt(move.getDestinationCoord());
+        int flags = QUIET;
+        if (move instanceof KingSideCastle) {
+            flags = KING_CASTLE;
+        } else if (move instanceof QueenSideCastle) {
+            flags = QUEEN_CASTLE;
+        } else if (move instanceof PawnJump) {
+            flags = DOUBLE_PAWN_PUSH;
+        } else if (move instanceof EnPassantCapture) {
+            flags = EN_PASSANT;
+        } else if (move.isCapture()) {
+            flags = CAPTURE;
+        }
+        if (move instanceof PawnPromotion) {
+            flags = (move.isCapture() ? CAPTURE : 0) | KNIGHT_PROMOTION + promotionOffset(((PawnPromotion) move).getPromotionType());
+        }
+        return create(from, to, flags);
+    }
+
+    // looks the move up among the board's legal moves, Move.NULL_MOVE if it is not there
+    public static Move toMove(final Board board, final int move) {
+        if (!isPromotion(move)) {
+            return MoveFactory.createMove(board, BoardUtils.intToTileCoord(getFrom(move)), BoardUtils.intToTileCoord(getTo(move)));
+        }
+        // several moves share the tiles of a promotion, the flags tell them apart
+        for (Move candidate : board.getCurrentPlayer().getLegalMoves()) {
+            if (candidate.isPromotion() && fromMove(candidate) == move) {
+                return candidate;
+            }
+        }
+        return Move.NULL_MOVE;
+    }
+
+    private static int promotionOffset(final PieceType promotionType) {
+        switch (promotionType) {
+            case KNIGHT:
+                return 0;
+            case BISHOP:
+                return 1;
+            case ROOK:
+                return 2;
+            default:
+                return 3;
+        }
+    }
+
+    // coordinate notation, i.e. e2e4 or e7e8q
+    public static String toString(final int move) {
+        final String promotion = isPromotion(move) ? String.valueOf("nbrq".charAt(getFlags(move) & 3)) : "";
+        return squareName(getFrom(move)) + squareName(getTo(move)) + promotion;
+    }
+
+    public static String squareName(final int square) {
+        return "" + (char) ('a' + square % 8) + (char) ('8' - square / 8);
+    }
+}
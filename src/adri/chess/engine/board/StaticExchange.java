@@ -0,0 +1,104 @@
+package adri.chess.engine.board;
+
+import adri.chess.engine.ChessColor;
+
+// Static exchange evaluation: the material a move wins or loses once both sides have made
+// every capture worth making on its destination square, cheapest attacker first.
+// Nothing is played on the board, attackers come from the attack tables with the pieces that
+// already took part removed from the occupancy, so sliders behind them join in.
+public class StaticExchange {
+
+    // by piece index % 6, the king is worth more than anything it could win
+    private static final int[] VALUES = {100, 300, 350, 500, 900, 20000};
+
+    private StaticExchange() {
+        throw new RuntimeException("Cannot instantiate StaticExchange");
+    }
+
+    // from the side to move's point of view, 0 for a quiet move to a square nothing can take on
+    public static int evaluate(final BitBoard position, final int move) {
+        final int from = PackedMove.getFrom(move);
+        final int to = PackedMove.getTo(move);
+        final int flags = PackedMove.getFlags(move);
+        if (PackedMove.isCastle(move)) {
+            return 0;
+        }
+
+        ChessColor side = position.getSideToMove();
+        long occupancy = position.getOccupancy() & ~(1L << from);
+
+        // what the move itself takes
+        int captured = 0;
+        if (flags == PackedMove.EN_PASSANT) {
+            captured = VALUES[BitBoard.WHITE_PAWN];
+            occupancy &= ~(1L << (to + 8 * side.getOppositeDirection()));
+        } else if (PackedMove.isCapture(move)) {
+            captured = VALUES[position.pieceAt(to) % 6];
+        }
+        if (PackedMove.isPromotion(move)) {
+            captured += VALUES[PackedMove.getPromotionPiece(move, side) % 6] - VALUES[BitBoard.WHITE_PAWN];
+        }
+
+        final long theirAttackers = position.attackersTo(to, occupancy, side.getOpposite());
+        if (theirAttackers == 0) { // most moves, nothing to work out
+            return captured;
+        }
+
+        // what stands on the square once the move is made
+        int onSquare = PackedMove.isPromotion(move) ? PackedMove.getPromotionPiece(move, side) % 6 : position.pieceAt(from) % 6;
+        long attackers = theirAttackers | position.attackersTo(to, occupancy, side);
+        final long diagonalSliders = position.getPieceBoard(BitBoard.WHITE_BISHOP) | position.getPieceBoard(BitBoard.BLACK_BISHOP) |
+                                     position.getPieceBoard(BitBoard.WHITE_QUEEN) | position.getPieceBoard(BitBoard.BLACK_QUEEN);
+        final long straightSliders = position.getPieceBoard(BitBoard.WHITE_ROOK) | position.getPieceBoard(BitBoard.BLACK_ROOK) |
+                                     position.getPieceBoard(BitBoard.WHITE_QUEEN) | position.getPieceBoard(BitBoard.BLACK_QUEEN);
+        side = side.getOpposite();
+
+        final int[] gain = new int[32];
+        gain[0] = captured;
+        int depth = 0;
+        while (true) {
+            final long sideAttackers = attackers & position.getOccupancy(side);
+            if (sideAttackers == 0) {
+                break;
+            }
+            // the least valuable attacker takes
+            final int offset = BitBoard.pieceColorOffset(side);
+            int attacker = offset;
+            while ((sideAttackers & position.getPieceBoard(attacker)) == 0) {
+                attacker++;
+            }
+            depth++;
+            // what the side has after taking, if the exchange stopped there
+            gain[depth] = VALUES[onSquare] - gain[depth - 1];
+
+            final long attackerBit = Long.lowestOneBit(sideAttackers & position.getPieceBoard(attacker));
+            occupancy &= ~attackerBit;
+            attackers &= ~attackerBit;
+            onSquare = attacker - offset;
+            // sliders lined up behind the piece that took can join in now
+            if (onSquare == BitBoard.WHITE_PAWN || onSquare == BitBoard.WHITE_BISHOP || onSquare == BitBoard.WHITE_QUEEN) {
+                attackers |= AttackTables.bishopAttacks(to, occupancy) & diagonalSliders & occupancy;
+            }
+            if (onSquare == BitBoard.WHITE_ROOK || onSquare == BitBoard.WHITE_QUEEN) {
+                attackers |= AttackTables.rookAttacks(to, occupancy) & straightSliders & occupancy;
+            }
+            side = side.getOpposite();
+        }
+
+        // neither side has to capture, each one stops where it is better off
+        while (depth > 0) {
+            gain[depth - 1] = -Math.max(-gain[depth - 1], gain[depth]);
+            depth--;
+        }
+        return gain[0];
+    }
+
+    // true if the move doesn't lose material, cheaper than evaluate() when the answer is obvious
+    public static boolean isNotLosing(final BitBoard position, final int move) {
+        if (PackedMove.isCapture(move) && PackedMove.getFlags(move) != PackedMove.EN_PASSANT &&
+            VALUES[position.pieceAt(PackedMove.getTo(move)) % 6] >= VALUES[position.pieceAt(PackedMove.getFrom(move)) % 6]) {
+            return true;
+        }
+        return evaluate(position, move) >= 0;
+    }
+}
@@ -54,7 +54,7 @@ public class King extends Piece {
 
     @Override
     public King movePiece(Move move) {
-        return new King(move.getDestinationCoord(), pieceColor, false, false);
+        return new King(move.getDestinationCoord(), pieceColor, false, false, false);
     }
 
     @Override
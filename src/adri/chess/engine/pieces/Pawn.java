@@ -18,6 +18,8 @@ import adri.chess.engine.board.Move.PawnPromotion;
 public class Pawn extends Piece{
 
     private static final int[][] CANDIDATE_LEGAL_MOVES = {{1, 0}, {2, 0}, {1, 1}, {1, -1}};
+    // queen first, so picking a promotion by its tiles alone gives a queen
+    private static final PieceType[] PROMOTION_TYPES = {PieceType.QUEEN, PieceType.ROOK, PieceType.BISHOP, PieceType.KNIGHT};
 
     public Pawn(int[] piecePos, ChessColor pieceColor) {
         super(PieceType.PAWN, piecePos, pieceColor);
@@ -48,7 +50,7 @@ public class Pawn extends Piece{
 
             if (currentCandidateOffset.equals(CANDIDATE_LEGAL_MOVES[0]) && !board.getTile(candidateDestinationCoord).hasPiece()) {
                 if (this.pieceColor.isPromotionSquare(candidateDestinationCoord)) {
-                    legalMoves.add(new PawnPromotion( new PawnMove(board, this, candidateDestinationCoord.clone()) ));
+                    addPromotions(legalMoves, new PawnMove(board, this, candidateDestinationCoord.clone()));
                 } else {
                     legalMoves.add(new PawnMove(board, this, candidateDestinationCoord.clone()));
                 }
@@ -75,20 +77,20 @@ public class Pawn extends Piece{
                     final Piece attackedPiece = board.getTile(candidateDestinationCoord).getPiece();
                     if (this.pieceColor != attackedPiece.pieceColor) {
                         if (this.pieceColor.isPromotionSquare(candidateDestinationCoord)) {
-                            legalMoves.add(new PawnPromotion( new PawnCapture(board, this, candidateDestinationCoord.clone(), attackedPiece) ));
+                            addPromotions(legalMoves, new PawnCapture(board, this, candidateDestinationCoord.clone(), attackedPiece));
                         } else {
                             legalMoves.add(new PawnCapture(board, this, candidateDestinationCoord.clone(), attackedPiece));
                         }
                     }
                 // En passant moves
                 } else if (board.getJumpedPawn() != null) {
-                    //check pawn on left
+                    // check pawn on the destination file
                     if (board.getJumpedPawn().getPiecePos()[0] == this.piecePos[0] && board.getJumpedPawn().getPiecePos()[1] == 
-                        this.piecePos[1] + this.pieceColor.getOppositeDirection()) {
+                        candidateDestinationCoord[1]) {
                         final Piece attackedPiece = board.getJumpedPawn();
                         if (this.pieceColor != attackedPiece.getPieceColor()) {
                             if (this.pieceColor.isPromotionSquare(candidateDestinationCoord)) {
-                                legalMoves.add(new PawnPromotion( new EnPassantCapture(board, this, candidateDestinationCoord.clone(), attackedPiece) ));
+                                addPromotions(legalMoves, new EnPassantCapture(board, this, candidateDestinationCoord.clone(), attackedPiece));
                             } else {
                                 legalMoves.add(new EnPassantCapture(board, this, candidateDestinationCoord.clone(), attackedPiece));
                             }
@@ -100,20 +102,20 @@ public class Pawn extends Piece{
                     final Piece attackedPiece = board.getTile(candidateDestinationCoord).getPiece();
                     if (this.pieceColor != attackedPiece.pieceColor) {
                         if (this.pieceColor.isPromotionSquare(candidateDestinationCoord)) {
-                            legalMoves.add(new PawnPromotion( new PawnCapture(board, this, candidateDestinationCoord.clone(), attackedPiece) ));
+                            addPromotions(legalMoves, new PawnCapture(board, this, candidateDestinationCoord.clone(), attackedPiece));
                         } else {
                             legalMoves.add(new PawnCapture(board, this, candidateDestinationCoord.clone(), attackedPiece));
                         }
                     }
                 // En passant moves
                 } else if (board.getJumpedPawn() != null) {
-                    // check pawn on right
+                    // check pawn on the destination file
                     if (board.getJumpedPawn().getPiecePos()[0] == this.piecePos[0] && board.getJumpedPawn().getPiecePos()[1] == 
-                        this.piecePos[1] + this.pieceColor.getDirection()) {
+                        candidateDestinationCoord[1]) {
                         final Piece attackedPiece = board.getJumpedPawn();
                         if (this.pieceColor != attackedPiece.getPieceColor()) {
                             if (this.pieceColor.isPromotionSquare(candidateDestinationCoord)) {
-                                legalMoves.add(new PawnPromotion( new EnPassantCapture(board, this, candidateDestinationCoord.clone(), attackedPiece) ));
+                                addPromotions(legalMoves, new EnPassantCapture(board, this, candidateDestinationCoord.clone(), attackedPiece));
                             } else {
                                 legalMoves.add(new EnPassantCapture(board, this, candidateDestinationCoord.clone(), attackedPiece));
                             }
@@ -126,6 +128,9 @@ public class Pawn extends Piece{
         return Collections.unmodifiableList(legalMoves);
     }
 
-    
-    
+    private static void addPromotions(final List<Move> legalMoves, final Move decoratedMove) {
+        for (PieceType promotionType : PROMOTION_TYPES) {
+            legalMoves.add(new PawnPromotion(decoratedMove, promotionType));
+        }
+    }
 }
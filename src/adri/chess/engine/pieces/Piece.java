@@ -1,9 +1,16 @@
 package adri.chess.engine.pieces;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
 import adri.chess.engine.ChessColor;
 import adri.chess.engine.board.Move;
+import adri.chess.engine.board.Move.CaptureMove;
 import adri.chess.engine.board.Board;
+import adri.chess.engine.board.BoardUtils;
+import adri.chess.engine.board.Tile;
 
 // class to represent a piece
 public abstract class Piece {
@@ -13,7 +20,6 @@ public abstract class Piece {
     protected final ChessColor pieceColor;
     private final int cachedHashCode;
     private final boolean isFirstMove;
-    private static Piece promotePiece;
     //protected Collection<Move> legalMoves = calculateLegalMoves(board);
 
     protected Piece(PieceType pieceType, int[] piecePos, ChessColor pieceColor) {
@@ -44,14 +50,6 @@ public abstract class Piece {
         return result;
     }
 
-    public Piece getPromotionPiece() {
-        return promotePiece;
-    }
-
-    public static void setPromotionPiece(Piece piece) {
-        promotePiece = piece;
-    }
-
     // method to calculate possible moves for the piece given the board position
     public abstract Collection<Move> calculateLegalMoves(Board board);
     public abstract String toString();
@@ -70,6 +68,24 @@ public abstract class Piece {
 
     public abstract Piece movePiece(Move move);
 
+    // turns an attack bitboard into moves, skipping tiles held by this piece's own side
+    protected Collection<Move> calculateMovesFromAttacks(final Board board, final long attacks) {
+        final List<Move> legalMoves = new ArrayList<>();
+        long targets = attacks & ~board.getOccupancy(this.pieceColor);
+        while (targets != 0) {
+            final int[] coord = BoardUtils.intToTileCoord(Long.numberOfTrailingZeros(targets));
+            targets &= targets - 1;
+
+            final Tile destinationTile = board.getTile(coord);
+            if (destinationTile.hasPiece()) {
+                legalMoves.add(new CaptureMove(board, this, coord, destinationTile.getPiece()));
+            } else {
+                legalMoves.add(new Move(board, this, coord));
+            }
+        }
+        return Collections.unmodifiableList(legalMoves);
+    }
+
     @Override
     public boolean equals(Object other) {
         if (!(other instanceof Piece)) {
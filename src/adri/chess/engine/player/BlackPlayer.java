@@ -16,8 +16,8 @@ import adri.chess.engine.pieces.Rook;
 
 public class BlackPlayer extends Player {
 
-    public BlackPlayer(final Board board, final Collection<Move> blackBaseLegalMoves, final Collection<Move> whiteBaseLegalMoves) {
-        super(board, blackBaseLegalMoves, whiteBaseLegalMoves);
+    public BlackPlayer(final Board board) {
+        super(board);
     }
 
     @Override
@@ -36,7 +36,7 @@ public class BlackPlayer extends Player {
     }
 
     @Override
-    public Collection<Move> calculateKingCastles(Collection<Move> legalMoves, Collection<Move> opponentLegalMoves) {
+    public Collection<Move> calculateKingCastles(Collection<Move> legalMoves) {
         final List<Move> kingCastles = new ArrayList<>();
         if (getPlayerKing().isFirstMove() && !this.isInCheck()) {
             // black king-side castle
@@ -46,8 +46,8 @@ public class BlackPlayer extends Player {
                     final Rook castleRook = (Rook) rookTile.getPiece();
                     final int[] newKingPos = new int[]{0, 6};
                     final int[] newCastleRookPos = new int[]{0, 5};
-                    if (calculateAttackMovesOnTile(new int[]{0, 5}, opponentLegalMoves).isEmpty() &&
-                        calculateAttackMovesOnTile(new int[]{0, 6}, opponentLegalMoves).isEmpty()){
+                    if (!isTileAttacked(new int[]{0, 5}) &&
+                        !isTileAttacked(new int[]{0, 6})){
                         kingCastles.add(new KingSideCastle(board, playerKing, newKingPos, castleRook, rookTile.getTileCoord(), newCastleRookPos));
                     }
                 }
@@ -59,9 +59,8 @@ public class BlackPlayer extends Player {
                         final Rook castleRook = (Rook) rookTile.getPiece();
                         final int[] newKingPos = new int[]{0, 2};
                         final int[] newCastleRookPos = new int[]{0, 3};
-                        if (calculateAttackMovesOnTile(new int[]{0, 1}, opponentLegalMoves).isEmpty() &&
-                            calculateAttackMovesOnTile(new int[]{0, 2}, opponentLegalMoves).isEmpty() && 
-                            calculateAttackMovesOnTile(new int[]{0, 3}, opponentLegalMoves).isEmpty()){
+                        if (!isTileAttacked(new int[]{0, 2}) && 
+                            !isTileAttacked(new int[]{0, 3})){
                         kingCastles.add(new QueenSideCastle(board, playerKing, newKingPos, castleRook, rookTile.getTileCoord(), newCastleRookPos));
                     }
                     }
@@ -2,13 +2,17 @@ package adri.chess.engine.player;
 
 import java.util.ArrayList;
 import java.util.Collection;
-import java.util.Collections;
 import java.util.List;
 import java.util.stream.Stream;
 
 import adri.chess.engine.ChessColor;
+import adri.chess.engine.board.BitBoard;
 import adri.chess.engine.board.Board;
+import adri.chess.engine.board.BoardUtils;
 import adri.chess.engine.board.Move;
+import adri.chess.engine.board.MoveGenerator;
+import adri.chess.engine.board.MoveList;
+import adri.chess.engine.board.PackedMove;
 import adri.chess.engine.pieces.King;
 import adri.chess.engine.pieces.Piece;
 
@@ -16,25 +20,19 @@ public abstract class Player {
 
     protected final Board board;
     protected final King playerKing;
-    protected Collection<Move> legalMoves;
-    private final boolean isInCheck;
+    // computed on first use and kept, most boards built during a search are never asked for them
+    private Collection<Move> legalMoves;
+    private Boolean isInCheck;
+    private MoveList fullyLegalMoves; // packed moves that don't leave the king in check, built on first use
 
-    protected Player(Board board, Collection<Move> legalMoves, Collection<Move> opponentMoves) {
+    protected Player(Board board) {
         this.board = board;
         this.playerKing = establishKing();
-        this.legalMoves = legalMoves;
-        this.isInCheck = !this.calculateAttackMovesOnTile(this.playerKing.getPiecePos(), opponentMoves).isEmpty();
-        this.legalMoves = Stream.concat((this.legalMoves.stream()), calculateKingCastles(legalMoves, opponentMoves).stream()).toList();
     }
 
-    public Collection<Move> calculateAttackMovesOnTile(int[] piecePos, Collection<Move> opponentMoves) {
-        List<Move> attackMoves = new ArrayList<>();
-        for (Move move : opponentMoves) {
-            if (move.isTarget(piecePos)) {
-                attackMoves.add(move);
-            }
-        }
-        return Collections.unmodifiableList(attackMoves);
+    // true if any opponent piece attacks the tile, answered from the board's bitboards
+    protected boolean isTileAttacked(int[] tileCoord) {
+        return this.board.isSquareAttacked(BoardUtils.tileCoordToInt(tileCoord), getColor().getOpposite());
     }
 
     private King establishKing() {
@@ -51,37 +49,52 @@ public abstract class Player {
     }
 
     public boolean isMoveLegal(Move move) {
-        return this.legalMoves.contains(move);
+        return getLegalMoves().contains(move);
     }
 
     public Collection<Move> getLegalMoves() {
+        if (this.legalMoves == null) {
+            final List<Move> pieceMoves = new ArrayList<>();
+            for (Piece piece : getActivePieces()) {
+                pieceMoves.addAll(piece.calculateLegalMoves(this.board));
+            }
+            this.legalMoves = Stream.concat(pieceMoves.stream(), calculateKingCastles(pieceMoves).stream()).toList();
+        }
         return this.legalMoves;
     }
 
     public boolean isInCheck() {
-        //this.isInCheck = !Player.calculateAttackMovesOnTile(this.playerKing.getPiecePos(), opponentMoves).isEmpty();
+        if (this.isInCheck == null) {
+            this.isInCheck = isTileAttacked(this.playerKing.getPiecePos());
+        }
         return this.isInCheck;
     }
 
     public boolean isInCheckMate() {
-        return this.isInCheck && !hasEscapeMove();
+        return isInCheck() && !hasEscapeMove();
     }
 
     public boolean isInStaleMate() {
-        return ( (this.legalMoves.isEmpty() || !hasEscapeMove()) && !this.isInCheck) ||
+        return ( (getLegalMoves().isEmpty() || !hasEscapeMove()) && !isInCheck()) ||
                 // check if only kings are battling. Kings are guaranteed to be the last piece, bc they can't be captured
                 (this.getActivePieces().size() == 1 && this.getOpponent().getActivePieces().size() == 1);
     }
 
     protected boolean hasEscapeMove() {
-        
-        for (Move move : this.legalMoves) {
-            final MoveUpdate update = playMove(move);
-            if (update.getMoveStatus().isDone()) {
-                return true;
-            }
+        return !getFullyLegalMoves().isEmpty();
+    }
+
+    // true if playing the move would not leave this player's king in check
+    public boolean leavesKingSafe(Move move) {
+        return getFullyLegalMoves().contains(PackedMove.fromMove(move));
+    }
+
+    private MoveList getFullyLegalMoves() {
+        if (this.fullyLegalMoves == null) {
+            this.fullyLegalMoves = new MoveList();
+            MoveGenerator.generateLegalMoves(BitBoard.fromBoard(this.board, getColor()), this.fullyLegalMoves);
         }
-        return false;
+        return this.fullyLegalMoves;
     }
 
     public boolean isCastled() {
@@ -100,30 +113,16 @@ public abstract class Player {
         if (!isMoveLegal(move)) {
             return new MoveUpdate(this.board, move, MoveStatus.ILLEGAL_MOVE);
         }
-        Board updateBoard = move.execute();
-        Collection<Move> attacksOnKing = calculateAttacksOnKing(move, updateBoard);
-        
-
-        if (!attacksOnKing.isEmpty()) {
-            //this.legalMoves.remove(move);
+        // legality is known up front, so only moves that will be kept get executed
+        if (!leavesKingSafe(move)) {
             return new MoveUpdate(this.board, move, MoveStatus.PLAYER_IN_CHECK);
-        } else {
-            return new MoveUpdate(updateBoard, move, MoveStatus.DONE);
         }
+        return new MoveUpdate(move.execute(), move, MoveStatus.DONE);
 
     }
 
-    public Collection<Move> calculateAttacksOnKing(Move move, Board board) {
-        // calculate attacks on king
-        final Collection<Move> attacksOnKing = 
-        calculateAttackMovesOnTile(board.getCurrentPlayer().getOpponent().getPlayerKing().getPiecePos(), 
-                                   board.getCurrentPlayer().getLegalMoves());
-        return attacksOnKing;
-    }
-
-    
     public abstract Collection<Piece> getActivePieces();
     public abstract ChessColor getColor();
     public abstract Player getOpponent();
-    public abstract Collection<Move> calculateKingCastles(Collection<Move> legalMoves, Collection<Move> opponentLegalMoves);
+    public abstract Collection<Move> calculateKingCastles(Collection<Move> legalMoves);
 }
@@ -16,8 +16,8 @@ import adri.chess.engine.pieces.Rook;
 
 public class WhitePlayer extends Player {
 
-    public WhitePlayer(final Board board, final Collection<Move> whiteBaseLegalMoves, final Collection<Move> blackBaseLegalMoves) {
-        super(board, whiteBaseLegalMoves, blackBaseLegalMoves);
+    public WhitePlayer(final Board board) {
+        super(board);
     }
 
     @Override
@@ -36,7 +36,7 @@ public class WhitePlayer extends Player {
     }
 
     @Override
-    public Collection<Move> calculateKingCastles(final Collection<Move> legalMoves, final Collection<Move> opponentLegalMoves) {
+    public Collection<Move> calculateKingCastles(final Collection<Move> legalMoves) {
         final List<Move> kingCastles = new ArrayList<>();
         if (getPlayerKing().isFirstMove() && !this.isInCheck()) {
             // white king-side castle
@@ -46,8 +46,8 @@ public class WhitePlayer extends Player {
                     final Rook castleRook = (Rook) rookTile.getPiece();
                     final int[] newKingPos = new int[]{7, 6};
                     final int[] newCastleRookPos = new int[]{7, 5};
-                    if (calculateAttackMovesOnTile(new int[]{7, 6}, opponentLegalMoves).isEmpty() &&
-                        calculateAttackMovesOnTile(new int[]{7, 5}, opponentLegalMoves).isEmpty()) {
+                    if (!isTileAttacked(new int[]{7, 6}) &&
+                        !isTileAttacked(new int[]{7, 5})) {
                         kingCastles.add(new KingSideCastle(board, playerKing, newKingPos, castleRook, rookTile.getTileCoord(), newCastleRookPos));
                     }
                 }
@@ -59,9 +59,8 @@ public class WhitePlayer extends Player {
                         final Rook castleRook = (Rook) rookTile.getPiece();
                         final int[] newKingPos = new int[]{7, 2};
                         final int[] newCastleRookPos = new int[]{7, 3};
-                        if (calculateAttackMovesOnTile(new int[]{7, 1}, opponentLegalMoves).isEmpty() &&
-                            calculateAttackMovesOnTile(new int[]{7, 2}, opponentLegalMoves).isEmpty() &&
-                            calculateAttackMovesOnTile(new int[]{7, 3}, opponentLegalMoves).isEmpty()) {
+                        if (!isTileAttacked(new int[]{7, 2}) &&
+                            !isTileAttacked(new int[]{7, 3})) {
                             kingCastles.add(new QueenSideCastle(board, playerKing, newKingPos, castleRook, rookTile.getTileCoord(), newCastleRookPos));
                         }
                     }
@@ -0,0 +1,156 @@
+package adri.chess.engine.player.ai;
+
+import adri.chess.engine.board.BitBoard;
+import adri.chess.engine.board.MoveGenerator;
+import adri.chess.engine.board.MoveList;
+import adri.chess.engine.board.PackedMove;
+import adri.chess.engine.board.StaticExchange;
+
+// What the alpha-beta searches of BotMove3 and BotMove4 share: the counters, the clock, the
+// draw test at node entry, the null move test and the quiescence search at the horizon.
+// One per search thread, the move lists and counters belong to the thread that uses them.
+abstract class AlphaBetaSearcher {
+
+    private static final int MAX_PLY = 128;
+    private static final int CHECK_MATE_SCORE = 100000;
+    private static final int NULL_MOVE_MIN_DEPTH = 3; // shallower than this, a reduced search is hardly cheaper than the real one
+    private static final int NULL_MOVE_VERIFY_DEPTH = 7; // from here a null move cutoff is confirmed by a reduced normal search
+    private static final int DELTA_MARGIN = 200; // a capture that can't lift the score within this of alpha is skipped
+
+    protected final BoardEvaluator boardEvaluator;
+    protected final MoveList[] moveLists; // one per ply, reused between nodes
+    private final boolean skipLosingCaptures; // leave captures that lose the exchange out of the quiescence search
+    protected long numPositions;
+    protected long quiescenceNodes;
+    protected int selectiveDepth; // deepest ply reached, extensions and quiescence included
+    protected long cutoffs;
+    protected long firstMoveCutoffs;
+
+    protected AlphaBetaSearcher(final BoardEvaluator boardEvaluator, final boolean skipLosingCaptures) {
+        this.boardEvaluator = boardEvaluator;
+        this.skipLosingCaptures = skipLosingCaptures;
+        this.moveLists = new MoveList[MAX_PLY];
+        for (int i = 0; i < MAX_PLY; i++) {
+            this.moveLists[i] = new MoveList();
+        }
+    }
+
+    protected abstract boolean isCancelled();
+
+    protected abstract void cancel();
+
+    // the position searched with the window (beta - 1, beta) and no null move, from the side to move's point of view
+    protected abstract int nullWindowSearch(BitBoard position, int depth, int beta, long endTime);
+
+    protected void resetCounters() {
+        this.numPositions = 0;
+        this.quiescenceNodes = 0;
+        this.selectiveDepth = 0;
+        this.cutoffs = 0;
+        this.firstMoveCutoffs = 0;
+    }
+
+    // the clock is only read every 1024 nodes, once it runs out every node unwinds straight away
+    protected boolean isOutOfTime(final long endTime) {
+        if (isCancelled() || ((this.numPositions & 1023) == 0 && System.currentTimeMillis() >= endTime)) {
+            cancel();
+            return true;
+        }
+        return false;
+    }
+
+    // a draw whatever lies below, and repeating positions would otherwise be searched over and over
+    protected static boolean isDraw(final BitBoard position) {
+        return position.isRepetition() || position.isFiftyMoveDraw();
+    }
+
+    // Null move: let the opponent move twice. If a reduced search still fails high, a real move
+    // almost surely would too. Not in check, where passing is illegal, and not with only pawns
+    // left, where having to move can be what loses (zugzwang). The caller rules out passing twice
+    // in a row. False once the search is cancelled, the node is then thrown away anyway.
+    protected boolean nullMoveFailsHigh(final BitBoard position, final int depth, final int beta,
+                                        final boolean inCheck, final long endTime) {
+        if (depth < NULL_MOVE_MIN_DEPTH || Math.abs(beta) >= CHECK_MATE_SCORE - MAX_PLY || inCheck ||
+            !position.hasNonPawnMaterial(position.getSideToMove())) {
+            return false;
+        }
+        final int reduction = depth > 6 ? 3 : 2;
+        position.makeNullMove();
+        this.numPositions++;
+        int evaluation = -nullWindowSearch(position, depth - 1 - reduction, -beta + 1, endTime);
+        position.unmakeMove();
+        if (isCancelled()) {
+            return false;
+        }
+        // deep down a wrong cutoff costs a lot, so search this node again reduced, without passing
+        if (evaluation >= beta && depth >= NULL_MOVE_VERIFY_DEPTH) {
+            evaluation = nullWindowSearch(position, depth - reduction, beta, endTime);
+            if (isCancelled()) {
+                return false;
+            }
+        }
+        // a mate found after passing isn't a real one, the caller returns beta
+        return evaluation >= beta;
+    }
+
+    // Captures only, until the position is quiet. The side to move may always "stand pat" on the
+    // static evaluation instead of capturing, except in check, where every evasion is searched.
+    protected int quiesce(final BitBoard position, int alpha, final int beta, final long endTime) {
+        if (isOutOfTime(endTime)) {
+            return 0;
+        }
+
+        final int ply = position.getPly();
+        this.selectiveDepth = Math.max(this.selectiveDepth, ply);
+        if (ply == MAX_PLY - 1) {
+            return this.boardEvaluator.evaluate(position);
+        }
+
+        final MoveList moves = this.moveLists[ply];
+        final boolean inCheck = MoveGenerator.isInCheck(position);
+        int standPat = 0;
+        if (inCheck) {
+            MoveGenerator.generateLegalMoves(position, moves);
+            if (moves.isEmpty()) {
+                return -CHECK_MATE_SCORE + ply;
+            }
+        } else {
+            standPat = this.boardEvaluator.evaluate(position);
+            if (standPat >= beta) {
+                return beta;
+            }
+            alpha = Math.max(alpha, standPat);
+            MoveGenerator.generateCaptures(position, moves);
+        }
+
+        for (int i = 0; i < moves.size(); i++) {
+            moves.setScore(i, MoveOrdering.mvvLva(moves.get(i), position));
+        }
+
+        for (int i = 0; i < moves.size(); i++) {
+            final int move = moves.pickBest(i);
+            // delta pruning, even winning the piece for nothing would leave us below alpha,
+            // and a capture that loses the exchange isn't worth following
+            if (!inCheck && !PackedMove.isPromotion(move) &&
+                (standPat + MoveOrdering.captureValue(move, position) + DELTA_MARGIN <= alpha ||
+                 (this.skipLosingCaptures && !StaticExchange.isNotLosing(position, move)))) {
+                continue;
+            }
+
+            position.makeMove(move);
+            this.numPositions++;
+            this.quiescenceNodes++;
+            final int evaluation = -quiesce(position, -beta, -alpha, endTime);
+            position.unmakeMove();
+            if (isCancelled()) {
+                return 0;
+            }
+
+            if (evaluation >= beta) {
+                return beta;
+            }
+            alpha = Math.max(alpha, evaluation);
+        }
+        return alpha;
+    }
+}
@@ -1,10 +1,18 @@
 package adri.chess.engine.player.ai;
 
+import adri.chess.engine.ChessColor;
+import adri.chess.engine.board.BitBoard;
 import adri.chess.engine.board.Board;
-import adri.chess.engine.board.Move;
+import adri.chess.engine.board.MoveGenerator;
 
 public interface BoardEvaluator {
     
     int evaluate(Board board);
-    void logBoardHistory(Board board, Move move);
+
+    // from the side to move's point of view, mate and stalemate are left to the search
+    default int evaluate(final BitBoard position) {
+        final ChessColor us = position.getSideToMove();
+        return position.getMaterialValue(us) - position.getMaterialValue(us.getOpposite()) +
+               MoveGenerator.countMobility(position, us);
+    }
 }
@@ -6,4 +6,20 @@ import adri.chess.engine.board.Move;
 public interface Bot {
     public Move execute(Board board, int depth);
     public int search(Board board, int depth);
-}
\ No newline at end of file
+
+    // where the bot publishes a SearchStats after every search
+    public SearchReporter getSearchReporter();
+
+    public default void addSearchListener(final SearchListener listener) {
+        getSearchReporter().addListener(listener);
+    }
+
+    public default void removeSearchListener(final SearchListener listener) {
+        getSearchReporter().removeListener(listener);
+    }
+
+    // stats of the last search, null before the first one
+    public default SearchStats getLastSearchStats() {
+        return getSearchReporter().getLastSearchStats();
+    }
+}
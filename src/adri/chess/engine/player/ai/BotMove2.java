@@ -1,9 +1,9 @@
 package adri.chess.engine.player.ai;
 
 //import java.util.Collection;
-
 import adri.chess.engine.board.Board;
 import adri.chess.engine.board.Move;
+import adri.chess.engine.board.PackedMove;
 //import adri.chess.engine.pieces.Piece;
 import adri.chess.engine.player.MoveUpdate;
 //import adri.chess.engine.player.Player;
@@ -11,15 +11,22 @@ import adri.chess.engine.player.MoveUpdate;
 public class BotMove2 implements Bot {
     
     private final BoardEvaluator boardEvaluator;
-    private int numPositions;
+    private long numPositions;
+    private final SearchReporter searchReporter;
 
     public BotMove2() {
         this.boardEvaluator = new StandardBoardEvaluator();
         this.numPositions = 0;
+        this.searchReporter = new SearchReporter();
+    }
+
+    public SearchReporter getSearchReporter() {
+        return this.searchReporter;
     }
 
     public Move execute(Board board, final int depth) {
         final long startTime = System.currentTimeMillis();
+        numPositions = 0;
 
         Move bestMove = null;
         int bestEval = Integer.MIN_VALUE;
@@ -36,9 +43,15 @@ public class BotMove2 implements Bot {
                 }
             }
         }
-        System.out.println("Executed in " + (System.currentTimeMillis() - startTime) + "ms");
-        System.out.println("Searched over " + numPositions + " positions");
-        System.out.println("Best evaluation was " + bestEval + "\n");
+        final long elapsedTime = System.currentTimeMillis() - startTime;
+        this.searchReporter.publish(new SearchStats.Builder("BotMove2")
+            .setBestMove(bestMove == null ? "none" : PackedMove.toString(PackedMove.fromMove(bestMove)))
+            .setScore(bestEval)
+            .setTime(elapsedTime)
+            .setNodes(numPositions)
+            .setDepth(depth)
+            .setSelectiveDepth(depth)
+            .build());
         return bestMove;
     }
 
@@ -2,64 +2,134 @@ package adri.chess.engine.player.ai;
 
 
 //import java.util.Collection;
+import java.util.Arrays;
 
+import adri.chess.engine.board.BitBoard;
 import adri.chess.engine.board.Board;
 import adri.chess.engine.board.Move;
+import adri.chess.engine.board.MoveGenerator;
+import adri.chess.engine.board.MoveList;
+import adri.chess.engine.board.PackedMove;
 //import adri.chess.engine.pieces.Piece;
-import adri.chess.engine.player.MoveUpdate;
 //import adri.chess.engine.player.Player;
 
-public class BotMove3 implements Bot { // With alpha-beta pruning
+public class BotMove3 extends AlphaBetaSearcher implements Bot { // With alpha-beta pruning
     
-    private final BoardEvaluator boardEvaluator;
-    private int numPositions;
-    private long thinkTime; // in ms
+    private static final int MAX_PLY = 128;
+    private static final int CHECK_MATE_SCORE = 100000;
+    private static final int BEST_MOVE_SCORE = 1000000; // previous iteration's best move goes first
+
+    private TimeManager timeManager;
     private boolean searchCancelled;
+    private final SearchReporter searchReporter;
 
     public BotMove3() {
-        this.boardEvaluator = new StandardBoardEvaluator();
-        this.numPositions = 0;
-        this.thinkTime = 500; // in ms
+        super(new StandardBoardEvaluator(), false);
+        this.timeManager = new TimeManager(15000, 250); // 15s + 0.25s a move unless setClock() says otherwise
+        this.searchReporter = new SearchReporter();
+    }
+
+    public void setClock(final long baseTime, final long increment) { // in ms
+        this.timeManager = new TimeManager(baseTime, increment);
+    }
+
+    // a new game, back to the full base time
+    public void resetClock() {
+        this.timeManager.reset();
+    }
+
+    public SearchReporter getSearchReporter() {
+        return this.searchReporter;
+    }
+
+    @Override
+    protected boolean isCancelled() {
+        return this.searchCancelled;
     }
 
+    @Override
+    protected void cancel() {
+        this.searchCancelled = true;
+    }
+
+    @Override
+    protected int nullWindowSearch(final BitBoard position, final int depth, final int beta, final long endTime) {
+        return search(position, depth, beta - 1, beta, endTime, false);
+    }
+
+    // searches depth 1, 2, 3... up to depth, until the time given by the clock runs out
     public Move execute(Board board, final int depth) {
         final long startTime = System.currentTimeMillis();
-        final long endTime = startTime + this.thinkTime;
+        final long allocatedTime = this.timeManager.allocateTime();
+        final long endTime = startTime + allocatedTime;
         searchCancelled = false;
+        resetCounters();
+        final long[] iterationTimes = new long[Math.max(0, depth)];
+
+        final BitBoard position = BitBoard.fromBoard(board);
+        final MoveList moves = this.moveLists[0];
+        MoveGenerator.generateLegalMoves(position, moves);
+        int bestPackedMove = moves.isEmpty() ? PackedMove.NONE : moves.get(0);
+        int bestScore = 0;
+        int completedDepth = 0;
+
+        for (int iterationDepth = 1; iterationDepth <= depth; iterationDepth++) {
+            int alpha = Integer.MIN_VALUE + 1; // -infinity + 1 ( overflows :( )
+            int beta = Integer.MAX_VALUE - 1; // +infinity - 1 ( overflows :( )
+            int iterationBestMove = PackedMove.NONE;
+            final long iterationStartTime = System.currentTimeMillis();
+
+            for (int i = 0; i < moves.size(); i++) {
+                final int move = moves.pickBest(i);
+                position.makeMove(move);
+                numPositions++;
+                int evaluation = -search(position, iterationDepth - 1, -beta, -alpha, endTime, true);
+                position.unmakeMove();
+                if (searchCancelled) {
+                    break;
+                }
+                moves.setScore(i, evaluation);
+
+                if (evaluation > alpha) {
+                    alpha = evaluation;
+                    iterationBestMove = move;
+                } // Don't do anything for beta
+            }
 
-        Move bestMove = null;
-        int alpha = Integer.MIN_VALUE + 1; // -infinity + 1 ( overflows :( )
-        int beta = Integer.MAX_VALUE - 1; // +infinity - 1 ( overflows :( )
-        
-        if (searchCancelled ) {
-            System.out.println("Bot3:");
-            System.out.println("Executed in " + (System.currentTimeMillis() - startTime) + "ms");
-            System.out.println("Searched over " + numPositions + " positions");
-            System.out.println("Best evaluation was " + alpha + "\n");
-            return bestMove;
-        } else {
-            // Already calculates first depth
-            for (Move move : board.getCurrentPlayer().getLegalMoves()) {
-                MoveUpdate moveUpdate = board.getCurrentPlayer().playMove(move);
-                if (moveUpdate.getMoveStatus().isDone()) {
-                    numPositions++;
-                    int evaluation = -search(moveUpdate.getBoard(), depth - 1, -beta, -alpha, endTime);
-                    if (bestMove == null) {
-                        bestMove = move;
-                    }
-                    
-                    if (evaluation > alpha) {
-                        alpha = evaluation;
-                        bestMove = move;
-                    } // Don't do anything for beta
+            // an unfinished iteration is thrown away, the last finished one decides
+            if (searchCancelled || iterationBestMove == PackedMove.NONE) {
+                break;
+            }
+            bestPackedMove = iterationBestMove;
+            bestScore = alpha;
+            completedDepth = iterationDepth;
+            iterationTimes[iterationDepth - 1] = System.currentTimeMillis() - iterationStartTime;
+            for (int i = 0; i < moves.size(); i++) {
+                if (moves.get(i) == bestPackedMove) {
+                    moves.setScore(i, BEST_MOVE_SCORE);
                 }
             }
-            System.out.println("Bot3:");
-            System.out.println("Executed in " + (System.currentTimeMillis() - startTime) + "ms");
-            System.out.println("Searched over " + numPositions + " positions");
-            System.out.println("Best evaluation was " + alpha + "\n");
-            return bestMove;
+
+            if (Math.abs(bestScore) > CHECK_MATE_SCORE - MAX_PLY ||
+                System.currentTimeMillis() - startTime >= TimeManager.softLimit(allocatedTime)) {
+                break;
+            }
         }
+
+        final long elapsedTime = System.currentTimeMillis() - startTime;
+        this.timeManager.recordMove(elapsedTime);
+        this.searchReporter.publish(new SearchStats.Builder("BotMove3")
+            .setBestMove(bestPackedMove == PackedMove.NONE ? "none" : PackedMove.toString(bestPackedMove))
+            .setScore(bestScore)
+            .setTime(elapsedTime)
+            .setNodes(numPositions)
+            .setQuiescenceNodes(quiescenceNodes)
+            .setDepth(completedDepth)
+            .setSelectiveDepth(selectiveDepth)
+            .setCutoffs(cutoffs, firstMoveCutoffs)
+            .setIterationTimes(Arrays.copyOf(iterationTimes, completedDepth))
+            .build());
+        return bestPackedMove == PackedMove.NONE ? null : PackedMove.toMove(board, bestPackedMove);
     }
 
     // won't be using this
@@ -67,29 +137,49 @@ public class BotMove3 implements Bot { // With alpha-beta pruning
         throw new RuntimeException("No implementation for minimax search");
     }
 
-    public int search(final Board board, final int depth, int alpha, int beta, final long endTime) {
-        if (System.currentTimeMillis() >= endTime) {
-            this.searchCancelled = true;
-            return this.boardEvaluator.evaluate(board);
+    public int search(final BitBoard position, final int depth, int alpha, int beta, final long endTime,
+                      final boolean allowNullMove) {
+        if (isOutOfTime(endTime) || isDraw(position)) {
+            return 0;
         }
 
-        if (depth == 0 || isGameOver(board)) {
-            return this.boardEvaluator.evaluate(board);
+        // the horizon, only captures are played out from here
+        if (depth <= 0) {
+            return quiesce(position, alpha, beta, endTime);
         }
 
-        for (final Move move : board.getCurrentPlayer().getLegalMoves()) {
-            final MoveUpdate moveUpdate = board.getCurrentPlayer().playMove(move);
+        if (allowNullMove && nullMoveFailsHigh(position, depth, beta, MoveGenerator.isInCheck(position), endTime)) {
+            return beta;
+        }
 
-            if (moveUpdate.getMoveStatus().isDone()) {
-                numPositions++;
-                int evaluation = -search(moveUpdate.getBoard(), depth - 1, -beta, -alpha, endTime);
+        final MoveList moves = this.moveLists[position.getPly()];
+        MoveGenerator.generateLegalMoves(position, moves);
+        if (moves.isEmpty()) { // checkmate or stalemate, sooner mates score higher
+            return MoveGenerator.isInCheck(position) ? -CHECK_MATE_SCORE + position.getPly() : 0;
+        }
 
-                if (evaluation >= beta) {
-                    return beta;
-                }
+        if (position.getPly() == MAX_PLY - 1) {
+            return this.boardEvaluator.evaluate(position);
+        }
 
-                alpha = Math.max(alpha, evaluation);
+        for (int i = 0; i < moves.size(); i++) {
+            position.makeMove(moves.get(i));
+            numPositions++;
+            int evaluation = -search(position, depth - 1, -beta, -alpha, endTime, true);
+            position.unmakeMove();
+            if (this.searchCancelled) {
+                return 0;
             }
+
+            if (evaluation >= beta) {
+                cutoffs++;
+                if (i == 0) {
+                    firstMoveCutoffs++;
+                }
+                return beta;
+            }
+
+            alpha = Math.max(alpha, evaluation);
         }
         return alpha;
     }
@@ -121,11 +211,4 @@ public class BotMove3 implements Bot { // With alpha-beta pruning
             
         }
     }*/
-
-    private static boolean isGameOver(Board board) {
-        return board.getCurrentPlayer().isInCheckMate() ||
-               board.getCurrentPlayer().isInStaleMate();
-    }
-
-
 }
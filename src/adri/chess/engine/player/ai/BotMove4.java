@@ -1,91 +1,200 @@
 package adri.chess.engine.player.ai;
 
-import java.util.List;
 import java.util.ArrayList;
-import java.util.Collections;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
+import adri.chess.engine.board.BitBoard;
 import adri.chess.engine.board.Board;
 import adri.chess.engine.board.Move;
-import adri.chess.engine.pieces.Piece;
-import adri.chess.engine.player.MoveUpdate;
+import adri.chess.engine.board.MoveGenerator;
+import adri.chess.engine.board.MoveList;
+import adri.chess.engine.board.PackedMove;
+import adri.chess.engine.board.StaticExchange;
 
 public class BotMove4 implements Bot { // Alpha-beta heuristic Minimax search with better search algorithm and move ordering (to increase alpha-beta heuristic search efficiency)
-    private static final int MAX_MOVES = 218; // max moves in a chess position
-    
+
+    private static final int MAX_PLY = 128;
+    private static final int CHECK_MATE_SCORE = 100000;
+    private static final int DEFAULT_HASH_SIZE = 16; // in MB
+    private static final int HASH_MOVE_SCORE = 1000000; // searched before any capture
+    private static final int CAPTURE_SCORE = 500000; // captures and promotions, ahead of every quiet move
+    private static final int KILLER_SCORE = 400000; // quiet moves that cut off at the same ply, ahead of the other quiet moves
+    private static final int HISTORY_MAX = 100000; // history scores stay below the killers
+    private static final int ASPIRATION_WINDOW = 40; // around the last iteration's score, widened on every miss
+    private static final int ASPIRATION_MIN_DEPTH = 4; // scores from shallower iterations are too unsteady to aim at
+    private static final int LMR_MIN_DEPTH = 3;
+    private static final int LMR_MIN_MOVES = 3; // the first moves after the hash move are searched at full depth
+    private static final int IID_MIN_DEPTH = 5; // principal variation nodes without a hash move search shallower to find one
+    private static final int SINGULAR_MIN_DEPTH = 6;
+    private static final int SINGULAR_MARGIN = 2; // per ply, how much better than the rest the hash move must be
+    private static final int FRONTIER_DEPTH = 3; // futility pruning and razoring only this close to the leaves
+    private static final int[] FUTILITY_MARGINS = {0, 200, 350, 500}; // by depth, what a quiet move might still gain
+    private static final int REVERSE_FUTILITY_MARGIN = 120; // per ply, what the opponent might still win back
+    private static final int[] RAZOR_MARGINS = {0, 300, 450, 600}; // by depth
+
+    // late move reductions by depth and move number, both logarithmic so deep nodes and late moves lose the most
+    private static final int[][] LMR_REDUCTIONS = new int[64][64];
+
+    static {
+        for (int depth = 1; depth < 64; depth++) {
+            for (int moveNumber = 1; moveNumber < 64; moveNumber++) {
+                LMR_REDUCTIONS[depth][moveNumber] = (int) (0.5 + Math.log(depth) * Math.log(moveNumber) / 2.0);
+            }
+        }
+    }
+
     private final BoardEvaluator boardEvaluator;
-    private int numPositions;
+    private final TranspositionTable transpositionTable; // kept between moves, shared by every search thread
+    private final SearchWorker mainWorker; // runs on the calling thread, its result is the one played
+    private int threads;
+    private long numPositions;
+    private int completedDepth;
+    private int bestScore;
+    private double branchingFactor;
     private Move lastMove;
     private Move move;
-    private int[] moveScores;
-    private long thinkTime; // in ms
-    private boolean searchCancelled;
+    private TimeManager timeManager;
+    private volatile boolean searchCancelled;
+    private final SearchReporter searchReporter;
 
     public BotMove4() {
+        this(DEFAULT_HASH_SIZE, 1);
+    }
+
+    public BotMove4(final int hashSize) { // hash size in MB
+        this(hashSize, 1);
+    }
+
+    public BotMove4(final int hashSize, final int threads) { // hash size in MB
         this.boardEvaluator = new EnhancedBoardEvaluator();
+        this.transpositionTable = new TranspositionTable(hashSize);
+        this.mainWorker = new SearchWorker(0);
+        this.threads = Math.max(1, threads);
         this.numPositions = 0;
         this.lastMove = Move.NULL_MOVE; // to ward off many repetitions
         this.move = Move.NULL_MOVE;
-        this.moveScores = new int[MAX_MOVES];
-        this.thinkTime = 1000; // in ms
+        this.timeManager = new TimeManager(30000, 500); // 30s + 0.5s a move unless setClock() says otherwise
+        this.searchReporter = new SearchReporter();
+    }
+
+    public void setClock(final long baseTime, final long increment) { // in ms
+        this.timeManager = new TimeManager(baseTime, increment);
+    }
+
+    // a new game, back to the full base time
+    public void resetClock() {
+        this.timeManager.reset();
+    }
+
+    public void setThreads(final int threads) {
+        this.threads = Math.max(1, threads);
+    }
+
+    public SearchReporter getSearchReporter() {
+        return this.searchReporter;
     }
 
     public Move execute(Board board, final int depth) {
         final long startTime = System.currentTimeMillis();
-        final long endTime = startTime + this.thinkTime;
+        final long allocatedTime = this.timeManager.allocateTime();
+        final int bestPackedMove = think(BitBoard.fromBoard(board), depth, allocatedTime);
+
+        final Move bestMove = bestPackedMove == PackedMove.NONE ? null : PackedMove.toMove(board, bestPackedMove);
+        final long elapsedTime = System.currentTimeMillis() - startTime;
+        this.timeManager.recordMove(elapsedTime);
+        this.move = bestMove;
+        return bestMove;
+    }
+
+    // Lazy SMP: every helper thread runs its own iterative deepening on a copy of the root,
+    // the only thing shared is the transposition table. Helpers fill it with results the main
+    // thread then finds instead of searching, odd helpers one ply deeper so they run ahead of it.
+    int think(final BitBoard position, final int depth, final long allocatedTime) {
+        final long startTime = System.currentTimeMillis();
+        final long endTime = startTime + allocatedTime;
+        final long softLimit = startTime + TimeManager.softLimit(allocatedTime);
         this.searchCancelled = false;
+        this.transpositionTable.newSearch();
 
-        Move bestMove = null;
-        int alpha = Integer.MIN_VALUE + 1; // -infinity + 1 ( overflows :( )
-        int beta = Integer.MAX_VALUE - 1; // +infinity - 1 ( overflows :( )
-        
-        if (searchCancelled) { // time up for search
-            System.out.println("Bot 4:");
-            System.out.println("Executed in " + (System.currentTimeMillis() - startTime) + "ms");
-            System.out.println("Searched over " + numPositions + " positions");
-            System.out.println("Best evaluation was " + alpha + "\n");
-            this.move = bestMove;
-            // log the move using zobrist
-            this.boardEvaluator.logBoardHistory(board, this.move);
-            return bestMove;
-        } else {
-            List<Move> moves = new ArrayList<>(board.getCurrentPlayer().getLegalMoves());
-            orderMoves(board);
-            for (int i = 0; i < moves.size(); i++) {
-                Move move = pickBest(moves, i);
-                MoveUpdate moveUpdate = board.getCurrentPlayer().playMove(move);
-                if (moveUpdate.getMoveStatus().isDone()) {
-                    numPositions++;
-                    int evaluation = -search(moveUpdate.getBoard(), depth - 1, -beta, -alpha, endTime);
-                    if (bestMove == null) {
-                        bestMove = move;
-                    }
-                    
-                    if (evaluation > alpha) {
-                        alpha = evaluation;
-                        bestMove = move;
-                    } // Don't do anything for beta
-                }
+        final ExecutorService executor = this.threads > 1 ? Executors.newFixedThreadPool(this.threads - 1) : null;
+        final List<SearchWorker> helpers = new ArrayList<>();
+        final List<Future<?>> running = new ArrayList<>();
+        try {
+            for (int id = 1; id < this.threads; id++) {
+                final SearchWorker helper = new SearchWorker(id);
+                final BitBoard helperPosition = position.copy();
+                helpers.add(helper);
+                running.add(executor.submit(() -> helper.iterate(helperPosition, depth, endTime, Long.MAX_VALUE)));
+            }
+
+            final int bestPackedMove = this.mainWorker.iterate(position, depth, endTime, softLimit);
+            // the main thread is done, the helpers have nothing left to help with
+            this.searchCancelled = true;
+            for (final Future<?> helper : running) {
+                helper.get();
+            }
+
+            this.numPositions = this.mainWorker.numPositions;
+            for (final SearchWorker helper : helpers) {
+                this.numPositions += helper.numPositions;
+            }
+            this.completedDepth = this.mainWorker.completedDepth;
+            this.bestScore = this.mainWorker.bestScore;
+            this.branchingFactor = this.mainWorker.branchingFactor;
+            reportSearch(bestPackedMove, System.currentTimeMillis() - startTime, helpers);
+            return bestPackedMove;
+        } catch (InterruptedException | ExecutionException e) {
+            throw new RuntimeException("Search thread failed", e);
+        } finally {
+            if (executor != null) {
+                executor.shutdown();
             }
-            // Already calculates first depth
-            System.out.println("Bot 4:");
-            System.out.println("Executed in " + (System.currentTimeMillis() - startTime) + "ms");
-            System.out.println("Searched over " + numPositions + " positions");
-            System.out.println("Best evaluation was " + alpha + "\n");
-            this.move = bestMove;
-            // log the move using zobrist
-            this.boardEvaluator.logBoardHistory(board, this.move);
-            return bestMove;
         }
-        
     }
 
-    public void orderMoves(Board board) {
-        List<Move> moves = new ArrayList<>(board.getCurrentPlayer().getLegalMoves());
-        int i = 0;
-        for (Move move : moves) {
-            moveScores[i] = scoreMove(move, board, 0);
-            i++;
+    // the main thread's iterations, the work of every thread
+    private void reportSearch(final int bestPackedMove, final long elapsedTime, final List<SearchWorker> helpers) {
+        long quiescenceNodes = this.mainWorker.quiescenceNodes;
+        long cutoffs = this.mainWorker.cutoffs;
+        long firstMoveCutoffs = this.mainWorker.firstMoveCutoffs;
+        int selectiveDepth = this.mainWorker.selectiveDepth;
+        for (final SearchWorker helper : helpers) {
+            quiescenceNodes += helper.quiescenceNodes;
+            cutoffs += helper.cutoffs;
+            firstMoveCutoffs += helper.firstMoveCutoffs;
+            selectiveDepth = Math.max(selectiveDepth, helper.selectiveDepth);
         }
+        this.searchReporter.publish(new SearchStats.Builder("BotMove4")
+            .setBestMove(bestPackedMove == PackedMove.NONE ? "none" : PackedMove.toString(bestPackedMove))
+            .setScore(this.bestScore)
+            .setThreads(this.threads)
+            .setTime(elapsedTime)
+            .setNodes(this.numPositions)
+            .setQuiescenceNodes(quiescenceNodes)
+            .setDepth(this.completedDepth)
+            .setSelectiveDepth(selectiveDepth)
+            .setBranchingFactor(this.branchingFactor)
+            .setCutoffs(cutoffs, firstMoveCutoffs)
+            .setTableProbes(this.transpositionTable.getProbes(), this.transpositionTable.getHits())
+            .setIterationTimes(Arrays.copyOf(this.mainWorker.iterationTimes, this.mainWorker.completedDepth))
+            .build());
+    }
+
+    long getNumPositions() {
+        return numPositions;
+    }
+
+    int getCompletedDepth() {
+        return completedDepth;
+    }
+
+    double getBranchingFactor() {
+        return branchingFactor;
     }
 
     public Move getLastMove() {
@@ -105,83 +214,424 @@ public class BotMove4 implements Bot { // Alpha-beta heuristic Minimax search wi
         throw new RuntimeException("No implementation for minimax search");
     }
 
-    public int search(final Board board, final int depth, int alpha, int beta, final long endTime) {
-        if (System.currentTimeMillis() >= endTime) {
-            this.searchCancelled = true;
-            return this.boardEvaluator.evaluate(board);
+    private void storeResult(final long key, final int depth, final int bound, final int score, final int move, final int ply) {
+        // a search cut short by the clock leaves guesses behind, not results
+        if (!this.searchCancelled) {
+            this.transpositionTable.store(key, depth, bound, scoreToTable(score, ply), move);
         }
+    }
 
-        if (depth == 0 || isGameOver(board)) {
-            return this.boardEvaluator.evaluate(board);
+    // mate scores count plies from the root, the table keeps them relative to the stored node
+    private static int scoreToTable(final int score, final int ply) {
+        if (score > CHECK_MATE_SCORE - MAX_PLY && score <= CHECK_MATE_SCORE) {
+            return score + ply;
+        } else if (score < -CHECK_MATE_SCORE + MAX_PLY && score >= -CHECK_MATE_SCORE) {
+            return score - ply;
         }
+        return score;
+    }
+
+    private static int scoreFromTable(final int score, final int ply) {
+        if (score > CHECK_MATE_SCORE - MAX_PLY && score <= CHECK_MATE_SCORE + MAX_PLY) {
+            return score - ply;
+        } else if (score < -CHECK_MATE_SCORE + MAX_PLY && score >= -CHECK_MATE_SCORE - MAX_PLY) {
+            return score + ply;
+        }
+        return score;
+    }
 
-        for (final Move move : board.getCurrentPlayer().getLegalMoves()) {
-            final MoveUpdate moveUpdate = board.getCurrentPlayer().playMove(move);
+    // what the move wins or loses once the exchange on its square is played out, which also
+    // catches a piece moved to a square where it simply hangs
+    private static int scoreMove(final int move, final BitBoard position) {
+        return StaticExchange.evaluate(position, move);
+    }
 
-            if (moveUpdate.getMoveStatus().isDone()) {
-                numPositions++;
-                int evaluation = -search(moveUpdate.getBoard(), depth - 1, -beta, -alpha, endTime);
+    // one search thread's own state, the main thread's worker is kept between moves
+    private final class SearchWorker extends AlphaBetaSearcher {
 
-                if (evaluation >= beta) {
-                    return beta;
+        private final int id; // 0 is the main thread
+        private final MoveList rootMoves;
+        private final int[][] killerMoves; // two per ply, newest first
+        private final int[][] history; // per color, from * 64 + to, grows with every cutoff a quiet move makes
+        private final long[] iterationTimes; // in ms, by depth - 1
+        private int completedDepth;
+        private int bestScore;
+        private double branchingFactor; // nodes of the last iteration over nodes of the one before
+        private int rootBestMove;
+        private int rootDepth; // extensions stop at twice this many plies
+
+        private SearchWorker(final int id) {
+            super(BotMove4.this.boardEvaluator, true);
+            this.id = id;
+            this.rootMoves = new MoveList();
+            this.killerMoves = new int[MAX_PLY][2];
+            this.history = new int[2][64 * 64];
+            this.iterationTimes = new long[MAX_PLY];
+        }
+
+        @Override
+        protected boolean isCancelled() {
+            return searchCancelled;
+        }
+
+        @Override
+        protected void cancel() {
+            searchCancelled = true;
+        }
+
+        @Override
+        protected int nullWindowSearch(final BitBoard position, final int depth, final int beta, final long endTime) {
+            return search(position, depth, beta - 1, beta, endTime, false, PackedMove.NONE);
+        }
+
+        // searches depth 1, 2, 3... up to depth, until the clock or the main thread stops it
+        private int iterate(final BitBoard position, final int depth, final long endTime, final long softLimit) {
+            resetCounters();
+            Arrays.fill(this.iterationTimes, 0L);
+            this.completedDepth = 0;
+            this.bestScore = 0;
+            this.branchingFactor = 0.0;
+            // killers belong to the last position, history still says something about this one
+            for (final int[] killers : this.killerMoves) {
+                killers[0] = PackedMove.NONE;
+                killers[1] = PackedMove.NONE;
+            }
+            ageHistory();
+            MoveGenerator.generateLegalMoves(position, rootMoves);
+            for (int i = 0; i < rootMoves.size(); i++) {
+                rootMoves.setScore(i, scoreMove(rootMoves.get(i), position));
+            }
+            // mated or stalemated, nothing to search
+            if (rootMoves.isEmpty()) {
+                return PackedMove.NONE;
+            }
+            // fallback if not even the first iteration finishes
+            int bestPackedMove = rootMoves.pickBest(0);
+
+            // odd helpers run one ply ahead of the main thread, so the threads don't all search the same tree
+            long previousIterationNodes = 0;
+            for (int iterationDepth = 1 + (this.id & 1); iterationDepth <= depth; iterationDepth++) {
+                final long iterationStartNodes = this.numPositions;
+                final long iterationStartTime = System.currentTimeMillis();
+                this.rootDepth = iterationDepth;
+                // aspiration window: expect about the last score, and search again wider if it falls outside
+                int window = ASPIRATION_WINDOW;
+                int alpha = Integer.MIN_VALUE + 1; // -infinity + 1 ( overflows :( )
+                int beta = Integer.MAX_VALUE - 1; // +infinity - 1 ( overflows :( )
+                if (iterationDepth >= ASPIRATION_MIN_DEPTH && Math.abs(this.bestScore) < CHECK_MATE_SCORE - MAX_PLY) {
+                    alpha = this.bestScore - window;
+                    beta = this.bestScore + window;
+                }
+                int score;
+                while (true) {
+                    score = searchRoot(position, iterationDepth, alpha, beta, endTime);
+                    if (searchCancelled) {
+                        break;
+                    }
+                    // a fail against a bound that is already infinite can't be searched any wider
+                    if ((score <= alpha && alpha == Integer.MIN_VALUE + 1) || (score >= beta && beta == Integer.MAX_VALUE - 1)) {
+                        break;
+                    }
+                    window *= 4;
+                    if (score <= alpha) {
+                        alpha = window > CHECK_MATE_SCORE ? Integer.MIN_VALUE + 1 : Math.max(Integer.MIN_VALUE + 1, this.bestScore - window);
+                    } else if (score >= beta) {
+                        beta = window > CHECK_MATE_SCORE ? Integer.MAX_VALUE - 1 : Math.min(Integer.MAX_VALUE - 1, this.bestScore + window);
+                    } else {
+                        break;
+                    }
                 }
+                final int iterationBestMove = this.rootBestMove;
 
-                alpha = Math.max(alpha, evaluation);
+                // a partial iteration only saw some of the moves, so its best move can't be trusted
+                if (searchCancelled || iterationBestMove == PackedMove.NONE) {
+                    break;
+                }
+                bestPackedMove = iterationBestMove;
+                this.bestScore = score;
+                this.completedDepth = iterationDepth;
+                this.iterationTimes[iterationDepth - 1] = System.currentTimeMillis() - iterationStartTime;
+                final long iterationNodes = this.numPositions - iterationStartNodes;
+                this.branchingFactor = previousIterationNodes == 0 ? 0.0 : (double) iterationNodes / previousIterationNodes;
+                previousIterationNodes = iterationNodes;
+
+                // the principal move leads the next iteration, the rest follow by this iteration's scores
+                for (int i = 0; i < rootMoves.size(); i++) {
+                    if (rootMoves.get(i) == bestPackedMove) {
+                        rootMoves.setScore(i, HASH_MOVE_SCORE);
+                    }
+                }
+
+                if (Math.abs(this.bestScore) > CHECK_MATE_SCORE - MAX_PLY || System.currentTimeMillis() >= softLimit) {
+                    break;
+                }
             }
+            return bestPackedMove;
         }
-        return alpha;
-    }
 
-    private int scoreMove(final Move move, final Board board, int depth) {
-        int moveScore = 0;
-        MoveUpdate moveUpdate = board.getCurrentPlayer().playMove(move);
-        if (moveUpdate.getMoveStatus().isDone()) {
-            Piece movedPiece = move.getMovedPiece();
-            Piece capturedPiece = move.getCapturedPiece();
+        // Principal variation search at the root: the first move gets the whole window, the others
+        // only have to show they are no better, and are searched again if they are
+        private int searchRoot(final BitBoard position, final int depth, int alpha, final int beta, final long endTime) {
+            this.rootBestMove = PackedMove.NONE;
+            for (int i = 0; i < rootMoves.size(); i++) {
+                final int move = rootMoves.pickBest(i);
+                position.makeMove(move);
+                this.numPositions++;
+                int evaluation;
+                if (i == 0) {
+                    evaluation = -search(position, depth - 1, -beta, -alpha, endTime, true, PackedMove.NONE);
+                } else {
+                    evaluation = -search(position, depth - 1, -alpha - 1, -alpha, endTime, true, PackedMove.NONE);
+                    if (evaluation > alpha && evaluation < beta) {
+                        evaluation = -search(position, depth - 1, -beta, -alpha, endTime, true, PackedMove.NONE);
+                    }
+                }
+                position.unmakeMove();
+                if (searchCancelled) {
+                    return 0;
+                }
+                rootMoves.setScore(i, evaluation);
+
+                if (evaluation > alpha) {
+                    alpha = evaluation;
+                    this.rootBestMove = move;
+                    if (alpha >= beta) {
+                        return beta;
+                    }
+                }
+            }
+            return alpha;
+        }
+
+        // excludedMove is left out of the search, to see how the node does without it
+        private int search(final BitBoard position, final int depth, int alpha, int beta, final long endTime,
+                           final boolean allowNullMove, final int excludedMove) {
+            if (isOutOfTime(endTime) || isDraw(position)) {
+                return 0;
+            }
+
+            // the horizon, only captures are played out from here
+            if (depth <= 0) {
+                return quiesce(position, alpha, beta, endTime);
+            }
+
+            final int ply = position.getPly();
+            this.selectiveDepth = Math.max(this.selectiveDepth, ply);
+            final long key = position.getHash();
+            final int originalAlpha = alpha;
+            // a search without one of the moves isn't a result for the position, it neither reads nor writes the table
+            final boolean excluding = excludedMove != PackedMove.NONE;
+
+            // a result stored at least this deep can answer the node outright, leaves are never stored
+            int hashMove = PackedMove.NONE;
+            final long entry = excluding ? TranspositionTable.NO_ENTRY : transpositionTable.probe(key);
+            if (entry != TranspositionTable.NO_ENTRY) {
+                hashMove = TranspositionTable.getMove(entry);
+                if (TranspositionTable.getDepth(entry) >= depth) {
+                    final int score = scoreFromTable(TranspositionTable.getScore(entry), ply);
+                    final int bound = TranspositionTable.getBound(entry);
+                    if (bound == TranspositionTable.EXACT ||
+                        (bound == TranspositionTable.LOWER_BOUND && score >= beta) ||
+                        (bound == TranspositionTable.UPPER_BOUND && score <= alpha)) {
+                        return score;
+                    }
+                }
+            }
+
+            final boolean inCheck = MoveGenerator.isInCheck(position);
+
+            // Near the leaves, a static evaluation far from the window decides the node without searching
+            // it, on null window nodes only so the principal variation is never cut short. Not in check,
+            // where the evaluation says little, and not near mate scores, which no margin can cover.
+            final boolean frontier = depth <= FRONTIER_DEPTH && !inCheck && !excluding && beta - alpha == 1 &&
+                                     Math.abs(alpha) < CHECK_MATE_SCORE - MAX_PLY && Math.abs(beta) < CHECK_MATE_SCORE - MAX_PLY;
+            final int staticEvaluation = frontier ? boardEvaluator.evaluate(position) : 0;
+            if (frontier) {
+                // reverse futility: so far above beta the opponent won't get back in time
+                if (staticEvaluation - REVERSE_FUTILITY_MARGIN * depth >= beta) {
+                    return beta;
+                }
+                // razoring: so far below alpha only captures could help, ask the quiescence search
+                if (staticEvaluation + RAZOR_MARGINS[depth] <= alpha) {
+                    final int evaluation = quiesce(position, alpha, beta, endTime);
+                    if (searchCancelled) {
+                        return 0;
+                    }
+                    if (evaluation <= alpha) {
+                        return alpha;
+                    }
+                }
+            }
+            // futility: quiet moves here can't lift the score up to alpha
+            final boolean futile = frontier && staticEvaluation + FUTILITY_MARGINS[depth] <= alpha;
+
+            if (allowNullMove && !excluding && nullMoveFailsHigh(position, depth, beta, inCheck, endTime)) {
+                return beta;
+            }
 
-            // Capturing a high value piece with a lower value piece is rewarded
-            if (capturedPiece != null) {
-                moveScore = 10 * (capturedPiece.getPieceValue() - movedPiece.getPieceValue());
+            // internal iterative deepening: on the principal variation a good first move matters most,
+            // so without one from the table, a shallower search of this node puts one there
+            if (hashMove == PackedMove.NONE && depth >= IID_MIN_DEPTH && beta - alpha > 1 && !excluding) {
+                search(position, depth - 2, alpha, beta, endTime, true, PackedMove.NONE);
+                if (searchCancelled) {
+                    return 0;
+                }
+                hashMove = TranspositionTable.getMove(transpositionTable.probe(key));
             }
-            
-            // Promotions of pawns are rewarded
-            if (move.isPromotion()) {
-                moveScore += move.getMovedPiece().getPromotionPiece().getPieceValue();
+
+            // Singular extension: if the table says the hash move holds at least some score, and every
+            // other move falls clearly short of that in a shallower search, the node hangs on that one
+            // move and it gets an extra ply.
+            boolean singular = false;
+            if (depth >= SINGULAR_MIN_DEPTH && entry != TranspositionTable.NO_ENTRY && hashMove != PackedMove.NONE &&
+                TranspositionTable.getDepth(entry) >= depth - 3 && TranspositionTable.getBound(entry) != TranspositionTable.UPPER_BOUND &&
+                ply < 2 * this.rootDepth) {
+                final int hashScore = scoreFromTable(TranspositionTable.getScore(entry), ply);
+                if (Math.abs(hashScore) < CHECK_MATE_SCORE - MAX_PLY) {
+                    final int singularBeta = hashScore - SINGULAR_MARGIN * depth;
+                    final int evaluation = search(position, (depth - 1) / 2, singularBeta - 1, singularBeta, endTime, false, hashMove);
+                    if (searchCancelled) {
+                        return 0;
+                    }
+                    singular = evaluation < singularBeta;
+                }
+            }
+
+            final MoveList moves = this.moveLists[ply];
+            MoveGenerator.generateLegalMoves(position, moves);
+            if (moves.isEmpty()) { // checkmate or stalemate, sooner mates score higher
+                return inCheck ? -CHECK_MATE_SCORE + ply : 0;
+            }
+
+            if (ply == MAX_PLY - 1) {
+                return boardEvaluator.evaluate(position);
             }
 
-            // Moving pieces into danger is penalized
-            if (board.getCurrentPlayer().calculateAttackMovesOnTile(move.getDestinationCoord(), moveUpdate.getBoard().getCurrentPlayer().getLegalMoves()).size() > 0) {
-                moveScore -= move.getMovedPiece().getPieceValue();
+            for (int i = 0; i < moves.size(); i++) {
+                moves.setScore(i, orderingScore(moves.get(i), position, hashMove, ply));
             }
 
+            int bestMove = PackedMove.NONE;
+            int searchedMoves = 0;
+            for (int i = 0; i < moves.size(); i++) {
+                final int move = moves.pickBest(i);
+                if (move == excludedMove) {
+                    continue;
+                }
+                final boolean quiet = !PackedMove.isCapture(move) && !PackedMove.isPromotion(move);
+                position.makeMove(move);
+                final boolean givesCheck = MoveGenerator.isInCheck(position);
+                if (futile && searchedMoves > 0 && quiet && !givesCheck) {
+                    position.unmakeMove();
+                    continue;
+                }
+                this.numPositions++;
+
+                // forcing lines get an extra ply so they resolve before the horizon: checks, the only
+                // legal reply, and the singular hash move, until the line is twice the iteration's depth
+                final int extension = ply < 2 * this.rootDepth &&
+                                      (givesCheck || moves.size() == 1 || (singular && move == hashMove)) ? 1 : 0;
+                final int newDepth = depth - 1 + extension;
+
+                int evaluation;
+                if (searchedMoves == 0) {
+                    evaluation = -search(position, newDepth, -beta, -alpha, endTime, true, PackedMove.NONE);
+                } else {
+                    // late quiet moves are searched shallower, unless they are killers or check
+                    int reduction = 0;
+                    if (depth >= LMR_MIN_DEPTH && searchedMoves >= LMR_MIN_MOVES && quiet && !inCheck && !givesCheck &&
+                        move != this.killerMoves[ply][0] && move != this.killerMoves[ply][1]) {
+                        reduction = Math.min(depth - 2, LMR_REDUCTIONS[Math.min(depth, 63)][Math.min(searchedMoves, 63)]);
+                    }
+                    // a null window only answers whether the move beats alpha, the few that do are searched again
+                    evaluation = -search(position, newDepth - reduction, -alpha - 1, -alpha, endTime, true, PackedMove.NONE);
+                    if (evaluation > alpha && reduction > 0) {
+                        evaluation = -search(position, newDepth, -alpha - 1, -alpha, endTime, true, PackedMove.NONE);
+                    }
+                    if (evaluation > alpha && evaluation < beta) {
+                        evaluation = -search(position, newDepth, -beta, -alpha, endTime, true, PackedMove.NONE);
+                    }
+                }
+                position.unmakeMove();
+                if (searchCancelled) {
+                    return 0;
+                }
+                searchedMoves++;
+
+                if (evaluation >= beta) {
+                    this.cutoffs++;
+                    if (searchedMoves == 1) {
+                        this.firstMoveCutoffs++;
+                    }
+                    if (quiet) {
+                        recordQuietCutoff(move, position, depth, ply);
+                    }
+                    if (!excluding) {
+                        storeResult(key, depth, TranspositionTable.LOWER_BOUND, beta, move, ply);
+                    }
+                    return beta;
+                }
+
+                if (evaluation > alpha || bestMove == PackedMove.NONE) {
+                    bestMove = move;
+                }
+                alpha = Math.max(alpha, evaluation);
+            }
+            if (!excluding) {
+                storeResult(key, depth, alpha > originalAlpha ? TranspositionTable.EXACT : TranspositionTable.UPPER_BOUND, alpha, bestMove, ply);
+            }
+            return alpha;
         }
 
-        return moveScore;
-    }
+        // hash move, then captures that don't lose material, then killers, then the other quiet moves
+        // by history, then the losing captures
+        private int orderingScore(final int move, final BitBoard position, final int hashMove, final int ply) {
+            if (move == hashMove) {
+                return HASH_MOVE_SCORE;
+            }
+            if (PackedMove.isCapture(move) || PackedMove.isPromotion(move)) {
+                return (StaticExchange.isNotLosing(position, move) ? CAPTURE_SCORE : -CAPTURE_SCORE) + MoveOrdering.mvvLva(move, position);
+            }
+            if (move == this.killerMoves[ply][0]) {
+                return KILLER_SCORE;
+            }
+            if (move == this.killerMoves[ply][1]) {
+                return KILLER_SCORE - 1;
+            }
+            // a quiet move can only lose material, by leaving the piece where it hangs
+            return this.history[colorIndex(position)][historyIndex(move)] + scoreMove(move, position);
+        }
 
-    private Move pickBest(List<Move> moves, final int startIndex) {
-        int bestIndex = startIndex;
-        int bestScore = this.moveScores[startIndex];
+        private void recordQuietCutoff(final int move, final BitBoard position, final int depth, final int ply) {
+            final int[] killers = this.killerMoves[ply];
+            if (killers[0] != move) {
+                killers[1] = killers[0];
+                killers[0] = move;
+            }
 
-        for (int i = startIndex + 1; i < moves.size(); i++) {
-            if (moveScores[i] > bestScore) {
-                bestScore = moveScores[i];
-                bestIndex = i;
+            // cutoffs far from the leaves save the most work
+            final int[] colorHistory = this.history[colorIndex(position)];
+            final int index = historyIndex(move);
+            colorHistory[index] += depth * depth;
+            if (colorHistory[index] >= HISTORY_MAX) {
+                ageHistory();
             }
         }
 
-        // Swap best to beginning of list
-        Collections.swap(moves, startIndex, bestIndex);
-        // Swap scores as well
-        int temp = moveScores[startIndex];
-        moveScores[startIndex] = moveScores[bestIndex];
-        moveScores[bestIndex] = temp;
+        private void ageHistory() {
+            for (final int[] colorHistory : this.history) {
+                for (int i = 0; i < colorHistory.length; i++) {
+                    colorHistory[i] /= 2;
+                }
+            }
+        }
 
-        return moves.get(startIndex);
-    }
+        private int colorIndex(final BitBoard position) {
+            return position.getSideToMove().isWhite() ? 0 : 1;
+        }
 
-    private static boolean isGameOver(Board board) {
-        return board.getCurrentPlayer().isInCheckMate() ||
-               board.getCurrentPlayer().isInStaleMate();
+        private int historyIndex(final int move) {
+            return PackedMove.getFrom(move) * 64 + PackedMove.getTo(move);
+        }
     }
 }
@@ -0,0 +1,274 @@
+package adri.chess.engine.player.ai;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.LongAdder;
+
+import adri.chess.engine.board.BitBoard;
+import adri.chess.engine.board.Board;
+import adri.chess.engine.board.Move;
+import adri.chess.engine.board.MoveGenerator;
+import adri.chess.engine.board.MoveList;
+import adri.chess.engine.board.PackedMove;
+import adri.chess.engine.board.StaticExchange;
+
+// Parallel alpha-beta with Young Brothers Wait: the eldest move of a node is searched first on
+// its own, then the remaining siblings are forked as ForkJoinPool tasks. A sibling that fails
+// high cancels the ones still running.
+//
+// Unlike BotMove4 it has no clock and no shared table, and every sibling gets the window that was
+// known once the eldest brother returned, not whatever another thread has found by then. That costs
+// some pruning, but the move and score for a given depth no longer depend on thread timing, so it
+// can be used to check other searches against.
+public class BotMove5 implements Bot {
+
+    private static final int MAX_PLY = 128;
+    private static final int CHECK_MATE_SCORE = 100000;
+    private static final int SPLIT_DEPTH = 3; // nodes with less depth left than this search their siblings serially
+
+    private final BoardEvaluator boardEvaluator;
+    private final ForkJoinPool pool;
+    private final LongAdder numPositions;
+    private int bestScore;
+    private final SearchReporter searchReporter;
+
+    public BotMove5() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    public BotMove5(final int threads) {
+        this.boardEvaluator = new EnhancedBoardEvaluator();
+        this.pool = new ForkJoinPool(Math.max(1, threads));
+        this.numPositions = new LongAdder();
+        this.searchReporter = new SearchReporter();
+    }
+
+    public SearchReporter getSearchReporter() {
+        return this.searchReporter;
+    }
+
+    // searches to exactly this depth
+    public Move execute(Board board, final int depth) {
+        final int bestPackedMove = think(BitBoard.fromBoard(board), depth);
+        return bestPackedMove == PackedMove.NONE ? null : PackedMove.toMove(board, bestPackedMove);
+    }
+
+    // won't be using this
+    public int search(final Board board, final int depth) {
+        throw new RuntimeException("No implementation for minimax search");
+    }
+
+    int think(final BitBoard position, final int depth) {
+        final long startTime = System.currentTimeMillis();
+        this.numPositions.reset();
+        final int bestPackedMove = this.pool.invoke(ForkJoinTask.adapt(() -> searchRoot(position, Math.max(1, depth))));
+
+        this.searchReporter.publish(new SearchStats.Builder("BotMove5")
+            .setBestMove(bestPackedMove == PackedMove.NONE ? "none" : PackedMove.toString(bestPackedMove))
+            .setScore(this.bestScore)
+            .setThreads(this.pool.getParallelism())
+            .setTime(System.currentTimeMillis() - startTime)
+            .setNodes(this.numPositions.sum())
+            .setDepth(Math.max(1, depth))
+            .setSelectiveDepth(Math.max(1, depth))
+            .build());
+        return bestPackedMove;
+    }
+
+    long getNumPositions() {
+        return this.numPositions.sum();
+    }
+
+    int getBestScore() {
+        return this.bestScore;
+    }
+
+    private int searchRoot(final BitBoard position, final int depth) {
+        final MoveList moves = new MoveList();
+        MoveGenerator.generateLegalMoves(position, moves);
+        if (moves.isEmpty()) {
+            this.bestScore = MoveGenerator.isInCheck(position) ? -CHECK_MATE_SCORE : 0;
+            return PackedMove.NONE;
+        }
+        orderMoves(moves, position);
+
+        int alpha = Integer.MIN_VALUE + 1; // -infinity + 1 ( overflows :( )
+        final int beta = Integer.MAX_VALUE - 1; // +infinity - 1 ( overflows :( )
+        final int eldest = moves.get(0);
+        position.makeMove(eldest);
+        this.numPositions.increment();
+        alpha = -search(position, depth - 1, -beta, -alpha, 1, null, createMoveLists(depth));
+        position.unmakeMove();
+
+        // nothing cuts off at the root, so every younger brother runs to the end
+        final List<SiblingTask> siblings = forkSiblings(position, moves, depth, alpha, beta, 0, new SplitPoint(null));
+        int bestMove = eldest;
+        this.bestScore = alpha;
+        for (int i = 0; i < siblings.size(); i++) {
+            // siblings that didn't beat the eldest return alpha, ties go to the move ordered first
+            final int evaluation = siblings.get(i).join();
+            if (evaluation > this.bestScore) {
+                this.bestScore = evaluation;
+                bestMove = moves.get(i + 1);
+            }
+        }
+        return bestMove;
+    }
+
+    private int search(final BitBoard position, final int depth, int alpha, final int beta, final int ply,
+                       final SplitPoint splitPoint, final MoveList[] moveLists) {
+        if (splitPoint != null && splitPoint.isCancelled()) {
+            return 0;
+        }
+        if (position.isRepetition() || position.isFiftyMoveDraw()) {
+            return 0;
+        }
+
+        final MoveList moves = moveLists[depth]; // depth only goes down within one task, so each node has its own
+        MoveGenerator.generateLegalMoves(position, moves);
+        if (moves.isEmpty()) { // checkmate or stalemate, sooner mates score higher
+            return MoveGenerator.isInCheck(position) ? -CHECK_MATE_SCORE + ply : 0;
+        }
+
+        if (depth == 0 || ply == MAX_PLY - 1) {
+            return this.boardEvaluator.evaluate(position);
+        }
+        orderMoves(moves, position);
+
+        // the eldest brother first, on this thread
+        position.makeMove(moves.get(0));
+        this.numPositions.increment();
+        int evaluation = -search(position, depth - 1, -beta, -alpha, ply + 1, splitPoint, moveLists);
+        position.unmakeMove();
+        if (splitPoint != null && splitPoint.isCancelled()) {
+            return 0;
+        }
+        if (evaluation >= beta) {
+            return beta;
+        }
+        alpha = Math.max(alpha, evaluation);
+
+        if (depth < SPLIT_DEPTH) {
+            for (int i = 1; i < moves.size(); i++) {
+                position.makeMove(moves.get(i));
+                this.numPositions.increment();
+                evaluation = -search(position, depth - 1, -beta, -alpha, ply + 1, splitPoint, moveLists);
+                position.unmakeMove();
+                if (splitPoint != null && splitPoint.isCancelled()) {
+                    return 0;
+                }
+
+                if (evaluation >= beta) {
+                    return beta;
+                }
+
+                alpha = Math.max(alpha, evaluation);
+            }
+            return alpha;
+        }
+
+        // then the younger brothers, all at once
+        final SplitPoint siblingSplit = new SplitPoint(splitPoint);
+        final List<SiblingTask> siblings = forkSiblings(position, moves, depth, alpha, beta, ply, siblingSplit);
+        for (final SiblingTask sibling : siblings) {
+            evaluation = sibling.join();
+            if (siblingSplit.isCancelled()) {
+                break;
+            }
+            alpha = Math.max(alpha, evaluation);
+        }
+        if (splitPoint != null && splitPoint.isCancelled()) {
+            return 0;
+        }
+        return siblingSplit.cutoff ? beta : alpha;
+    }
+
+    // every move but the first, each on its own copy of the position and with the same window
+    private List<SiblingTask> forkSiblings(final BitBoard position, final MoveList moves, final int depth,
+                                           final int alpha, final int beta, final int ply, final SplitPoint splitPoint) {
+        final List<SiblingTask> siblings = new ArrayList<>(moves.size() - 1);
+        for (int i = 1; i < moves.size(); i++) {
+            final BitBoard child = position.copy();
+            child.makeMove(moves.get(i));
+            this.numPositions.increment();
+            siblings.add(new SiblingTask(child, depth - 1, alpha, beta, ply + 1, splitPoint));
+        }
+        ForkJoinTask.invokeAll(siblings);
+        return siblings;
+    }
+
+    private static MoveList[] createMoveLists(final int size) {
+        final MoveList[] moveLists = new MoveList[size];
+        for (int i = 0; i < size; i++) {
+            moveLists[i] = new MoveList();
+        }
+        return moveLists;
+    }
+
+    private static void orderMoves(final MoveList moves, final BitBoard position) {
+        for (int i = 0; i < moves.size(); i++) {
+            moves.setScore(i, StaticExchange.evaluate(position, moves.get(i))); // what each move wins or loses on its square
+        }
+        // sorted up front, the eldest brother has to be the best guess before any sibling is forked
+        for (int i = 0; i < moves.size(); i++) {
+            moves.pickBest(i);
+        }
+    }
+
+    // the siblings forked at one node, cancelled once one of them fails high or an ancestor is cancelled
+    private static final class SplitPoint {
+
+        private final SplitPoint parent;
+        private volatile boolean cutoff;
+
+        private SplitPoint(final SplitPoint parent) {
+            this.parent = parent;
+        }
+
+        private boolean isCancelled() {
+            for (SplitPoint splitPoint = this; splitPoint != null; splitPoint = splitPoint.parent) {
+                if (splitPoint.cutoff) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    // one younger brother, its result is from the parent's side
+    private final class SiblingTask extends RecursiveTask<Integer> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final BitBoard position;
+        private final int depth;
+        private final int alpha;
+        private final int beta;
+        private final int ply;
+        private final SplitPoint splitPoint;
+
+        private SiblingTask(final BitBoard position, final int depth, final int alpha, final int beta, final int ply,
+                            final SplitPoint splitPoint) {
+            this.position = position;
+            this.depth = depth;
+            this.alpha = alpha;
+            this.beta = beta;
+            this.ply = ply;
+            this.splitPoint = splitPoint;
+        }
+
+        @Override
+        protected Integer compute() {
+            // a task can run on any thread, so it brings its own move lists
+            final int evaluation = -search(this.position, this.depth, -this.beta, -this.alpha, this.ply, this.splitPoint,
+                                           createMoveLists(this.depth + 1));
+            if (evaluation >= this.beta) {
+                this.splitPoint.cutoff = true;
+            }
+            return evaluation;
+        }
+    }
+}
@@ -0,0 +1,353 @@
+package adri.chess.engine.player.ai;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import adri.chess.engine.board.BitBoard;
+import adri.chess.engine.board.Board;
+import adri.chess.engine.board.Move;
+import adri.chess.engine.board.MoveGenerator;
+import adri.chess.engine.board.MoveList;
+import adri.chess.engine.board.PackedMove;
+
+// Monte Carlo tree search. Each simulation walks down the tree picking children by UCT,
+// grows it by one node, plays the rest out with the playout policy for a few plies and
+// scores the end with the evaluator, then adds that result to every node on the way.
+// Every thread runs simulations on the same tree. A thread going down a node gives it a
+// virtual loss, so the next thread sees it as worse and tries something else meanwhile.
+// The subtree of the move played is kept for the next move.
+public class BotMove6 implements Bot {
+
+    private static final int MAX_PLY = 128;
+    private static final int PLAYOUT_PLIES = 8; // after this, the evaluator says who is ahead
+    private static final double EXPLORATION = 1.0; // UCT constant, higher tries weak moves more often
+    private static final int VIRTUAL_LOSS = 3; // visits a thread on its way down counts as, each scoring a loss
+    private static final long VALUE_SCALE = 1000; // results in [0, 1] are summed as whole numbers of this
+    private static final double EVALUATION_SCALE = 400.0; // centipawn lead that counts as about a 3 in 4 chance to win
+
+    private final BoardEvaluator boardEvaluator;
+    private PlayoutPolicy playoutPolicy;
+    private int threads;
+    private int maxSimulations;
+    private Node root;
+    private final AtomicLong simulations;
+    private TimeManager timeManager;
+    private volatile boolean searchCancelled;
+    private final AtomicInteger selectiveDepth; // longest path down the tree, in plies
+    private final SearchReporter searchReporter;
+
+    public BotMove6() {
+        this(1);
+    }
+
+    public BotMove6(final int threads) {
+        this.boardEvaluator = new StandardBoardEvaluator();
+        this.playoutPolicy = new CapturePlayoutPolicy();
+        this.threads = Math.max(1, threads);
+        this.maxSimulations = Integer.MAX_VALUE;
+        this.simulations = new AtomicLong();
+        this.selectiveDepth = new AtomicInteger();
+        this.searchReporter = new SearchReporter();
+        this.timeManager = new TimeManager(30000, 500); // 30s + 0.5s a move unless setClock() says otherwise
+    }
+
+    public void setClock(final long baseTime, final long increment) { // in ms
+        this.timeManager = new TimeManager(baseTime, increment);
+    }
+
+    public void setThreads(final int threads) {
+        this.threads = Math.max(1, threads);
+    }
+
+    public void setPlayoutPolicy(final PlayoutPolicy playoutPolicy) {
+        this.playoutPolicy = playoutPolicy;
+    }
+
+    public SearchReporter getSearchReporter() {
+        return this.searchReporter;
+    }
+
+    // a move stops after this many simulations even with time left
+    public void setMaxSimulations(final int maxSimulations) {
+        this.maxSimulations = Math.max(1, maxSimulations);
+    }
+
+    // depth is ignored, the clock and the simulation budget decide how long it thinks
+    public Move execute(Board board, final int depth) {
+        final long startTime = System.currentTimeMillis();
+        final long allocatedTime = this.timeManager.allocateTime();
+        final int bestPackedMove = think(BitBoard.fromBoard(board), allocatedTime);
+
+        final Move bestMove = bestPackedMove == PackedMove.NONE ? null : PackedMove.toMove(board, bestPackedMove);
+        final long elapsedTime = System.currentTimeMillis() - startTime;
+        this.timeManager.recordMove(elapsedTime);
+        return bestMove;
+    }
+
+    // won't be using this
+    public int search(final Board board, final int depth) {
+        throw new RuntimeException("No implementation for minimax search");
+    }
+
+    // the most visited move at the root, the root becomes that move's node for the next call
+    int think(final BitBoard position, final long allocatedTime) {
+        final long startTime = System.currentTimeMillis();
+        final long endTime = startTime + allocatedTime;
+        this.searchCancelled = false;
+        this.simulations.set(0);
+        this.selectiveDepth.set(0);
+        this.root = reuseRoot(position.getHash());
+        // mated or stalemated, every simulation would just score the root again
+        if (this.root.expand(position).length == 0) {
+            this.root = null;
+            reportSearch(PackedMove.NONE, System.currentTimeMillis() - startTime);
+            return PackedMove.NONE;
+        }
+
+        final ExecutorService executor = this.threads > 1 ? Executors.newFixedThreadPool(this.threads - 1) : null;
+        final List<Future<?>> running = new ArrayList<>();
+        try {
+            for (int id = 1; id < this.threads; id++) {
+                final SimulationWorker helper = new SimulationWorker(position.copy());
+                running.add(executor.submit(() -> helper.run(endTime)));
+            }
+            new SimulationWorker(position).run(endTime);
+            this.searchCancelled = true;
+            for (final Future<?> helper : running) {
+                helper.get();
+            }
+        } catch (InterruptedException | ExecutionException e) {
+            throw new RuntimeException("Simulation thread failed", e);
+        } finally {
+            if (executor != null) {
+                executor.shutdown();
+            }
+        }
+
+        final Node[] children = this.root.children;
+        Node best = null;
+        if (children != null) {
+            for (final Node child : children) {
+                if (best == null || child.visits.get() > best.visits.get()) {
+                    best = child;
+                }
+            }
+        }
+        this.root = best;
+        final int bestPackedMove = best == null ? PackedMove.NONE : best.move;
+        reportSearch(bestPackedMove, System.currentTimeMillis() - startTime);
+        return bestPackedMove;
+    }
+
+    // a simulation counts as a node, and its share of a win as the score, in permille
+    private void reportSearch(final int bestPackedMove, final long elapsedTime) {
+        this.searchReporter.publish(new SearchStats.Builder("BotMove6")
+            .setBestMove(bestPackedMove == PackedMove.NONE ? "none" : PackedMove.toString(bestPackedMove))
+            .setScore(this.root == null ? 0 : (int) Math.round(this.root.winRate() * 1000))
+            .setThreads(this.threads)
+            .setTime(elapsedTime)
+            .setNodes(this.simulations.get())
+            .setSelectiveDepth(this.selectiveDepth.get())
+            .build());
+    }
+
+    // The tree left from the last move, if this position is the root or one of the opponent's
+    // replies to it. Anything else, a new game or a position set up by hand, starts afresh.
+    private Node reuseRoot(final long key) {
+        if (this.root != null) {
+            if (this.root.key == key) {
+                return this.root;
+            }
+            final Node[] replies = this.root.children;
+            if (replies != null) {
+                for (final Node reply : replies) {
+                    if (reply.key == key) {
+                        return reply;
+                    }
+                }
+            }
+        }
+        return new Node(PackedMove.NONE, key);
+    }
+
+    long getSimulations() {
+        return this.simulations.get();
+    }
+
+    // One thread's simulations, on its own copy of the root position.
+    private final class SimulationWorker {
+
+        private final BitBoard position;
+        private final MoveList[] moveLists; // one per ply of the playout
+        private final Node[] path;
+
+        SimulationWorker(final BitBoard position) {
+            this.position = position;
+            this.moveLists = new MoveList[MAX_PLY];
+            for (int i = 0; i < MAX_PLY; i++) {
+                this.moveLists[i] = new MoveList();
+            }
+            this.path = new Node[MAX_PLY];
+        }
+
+        void run(final long endTime) {
+            final Node rootNode = root;
+            // the clock is only read every 64 simulations
+            while (!searchCancelled && simulations.get() < maxSimulations) {
+                if ((simulations.getAndIncrement() & 63) == 0 && System.currentTimeMillis() >= endTime) {
+                    searchCancelled = true;
+                    break;
+                }
+                simulate(rootNode);
+            }
+        }
+
+        private void simulate(final Node rootNode) {
+            // down the tree, every node on the way takes a virtual loss
+            Node node = rootNode;
+            int length = 0;
+            this.path[length++] = node;
+            node.visits.addAndGet(VIRTUAL_LOSS);
+            double result; // for the side to move at the end of the path
+            while (true) {
+                if (length > 1 && (this.position.isRepetition() || this.position.isFiftyMoveDraw())) {
+                    result = 0.5;
+                    break;
+                }
+                Node[] children = node.children;
+                if (children == null) {
+                    // a leaf, it gets its children and a playout from here
+                    children = node.expand(this.position);
+                    result = children.length == 0 ? terminalResult() : playout();
+                    break;
+                }
+                if (children.length == 0) {
+                    result = terminalResult();
+                    break;
+                }
+                if (length == MAX_PLY - PLAYOUT_PLIES - 1) {
+                    result = playout();
+                    break;
+                }
+                node = select(node, children);
+                node.visits.addAndGet(VIRTUAL_LOSS);
+                this.position.makeMove(node.move);
+                this.path[length++] = node;
+            }
+
+            if (length - 1 > selectiveDepth.get()) {
+                selectiveDepth.accumulateAndGet(length - 1, Math::max);
+            }
+
+            // back up, each node keeps results for the side that played its move
+            for (int i = length - 1; i >= 0; i--) {
+                result = 1.0 - result;
+                this.path[i].visits.addAndGet(1 - VIRTUAL_LOSS);
+                this.path[i].value.addAndGet(Math.round(result * VALUE_SCALE));
+                if (i > 0) {
+                    this.position.unmakeMove();
+                }
+            }
+        }
+
+        // UCT: the average result plus a bonus for moves tried less than their siblings
+        private Node select(final Node parent, final Node[] children) {
+            final double logVisits = Math.log(Math.max(1, parent.visits.get()));
+            Node best = children[0];
+            double bestScore = Double.NEGATIVE_INFINITY;
+            for (final Node child : children) {
+                final int visits = child.visits.get();
+                if (visits == 0) {
+                    return child;
+                }
+                final double score = (double) child.value.get() / VALUE_SCALE / visits +
+                                     EXPLORATION * Math.sqrt(logVisits / visits);
+                if (score > bestScore) {
+                    bestScore = score;
+                    best = child;
+                }
+            }
+            return best;
+        }
+
+        // no legal moves: lost if mated, drawn if stalemated
+        private double terminalResult() {
+            return MoveGenerator.isInCheck(this.position) ? 0.0 : 0.5;
+        }
+
+        // the playout policy's moves for a few plies at most, then the evaluator's opinion as a chance to win
+        private double playout() {
+            int plies = 0;
+            double result = -1;
+            for (; plies < PLAYOUT_PLIES; plies++) {
+                if (this.position.isRepetition() || this.position.isFiftyMoveDraw()) {
+                    result = 0.5;
+                    break;
+                }
+                final MoveList moves = this.moveLists[plies];
+                MoveGenerator.generateLegalMoves(this.position, moves);
+                if (moves.isEmpty()) {
+                    result = terminalResult();
+                    break;
+                }
+                final int move = playoutPolicy.selectMove(this.position, moves);
+                if (move == PackedMove.NONE) {
+                    break;
+                }
+                this.position.makeMove(move);
+            }
+            if (result < 0) {
+                result = 1.0 / (1.0 + Math.exp(-boardEvaluator.evaluate(this.position) / EVALUATION_SCALE));
+            }
+            for (int i = 0; i < plies; i++) {
+                this.position.unmakeMove();
+            }
+            // the side to move changes every ply, and the result is for the one where the playout started
+            return (plies & 1) == 0 ? result : 1.0 - result;
+        }
+    }
+
+    // A position in the tree. Visits and value are updated by every thread without locks,
+    // the children are created once, by whichever thread gets there first.
+    private static final class Node {
+
+        private final int move; // the move that led here
+        private final long key;
+        private final AtomicInteger visits;
+        private final AtomicLong value; // sum of results for the side that played move, in VALUE_SCALE units
+        private volatile Node[] children; // null until expanded
+
+        Node(final int move, final long key) {
+            this.move = move;
+            this.key = key;
+            this.visits = new AtomicInteger();
+            this.value = new AtomicLong();
+        }
+
+        synchronized Node[] expand(final BitBoard position) {
+            if (this.children == null) {
+                final MoveList moves = new MoveList();
+                MoveGenerator.generateLegalMoves(position, moves);
+                final Node[] created = new Node[moves.size()];
+                for (int i = 0; i < moves.size(); i++) {
+                    position.makeMove(moves.get(i));
+                    created[i] = new Node(moves.get(i), position.getHash());
+                    position.unmakeMove();
+                }
+                this.children = created;
+            }
+            return this.children;
+        }
+
+        double winRate() {
+            final int visitCount = this.visits.get();
+            return visitCount == 0 ? 0.0 : (double) this.value.get() / VALUE_SCALE / visitCount;
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package adri.chess.engine.player.ai;
+
+import adri.chess.engine.board.BitBoard;
+import adri.chess.engine.board.MoveList;
+import adri.chess.engine.board.PackedMove;
+import adri.chess.engine.board.StaticExchange;
+
+// Captures and promotions that don't lose material, best by MVV-LVA first, until none are
+// left: a quick quiescence search along one line, so the evaluation at the end of the
+// playout isn't made in the middle of an exchange.
+public class CapturePlayoutPolicy implements PlayoutPolicy {
+
+    @Override
+    public int selectMove(final BitBoard position, final MoveList moves) {
+        int bestMove = PackedMove.NONE;
+        int bestScore = Integer.MIN_VALUE;
+        for (int i = 0; i < moves.size(); i++) {
+            final int move = moves.get(i);
+            if (PackedMove.isCapture(move) || PackedMove.isPromotion(move)) {
+                final int score = MoveOrdering.mvvLva(move, position);
+                if (score > bestScore && StaticExchange.isNotLosing(position, move)) {
+                    bestScore = score;
+                    bestMove = move;
+                }
+            }
+        }
+        return bestMove;
+    }
+}
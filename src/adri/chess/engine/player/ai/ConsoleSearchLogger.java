@@ -0,0 +1,26 @@
+package adri.chess.engine.player.ai;
+
+// Prints a short summary of every search to the console, what the bots used to print themselves.
+public class ConsoleSearchLogger implements SearchListener {
+
+    @Override
+    public void searchFinished(final SearchStats stats) {
+        final StringBuilder summary = new StringBuilder();
+        summary.append(stats.getBot()).append(":\n");
+        summary.append("Executed in ").append(stats.getTime()).append("ms on ").append(stats.getThreads())
+               .append(" thread(s), reached depth ").append(stats.getDepth())
+               .append(", selective depth ").append(stats.getSelectiveDepth()).append('\n');
+        summary.append("Searched over ").append(stats.getNodes()).append(" positions, ")
+               .append(stats.getNodesPerSecond()).append(" nps");
+        if (stats.getBranchingFactor() > 0.0) {
+            summary.append(String.format(", effective branching factor %.2f", stats.getBranchingFactor()));
+        }
+        summary.append('\n');
+        summary.append("Best move ").append(stats.getBestMove()).append(", evaluation ").append(stats.getScore()).append('\n');
+        if (stats.getTableProbes() > 0) {
+            summary.append("Transposition table hit rate ")
+                   .append(Math.round(100.0 * stats.getTableHits() / stats.getTableProbes())).append("%\n");
+        }
+        System.out.println(summary);
+    }
+}
@@ -1,11 +1,8 @@
 package adri.chess.engine.player.ai;
 
-import java.util.ArrayList;
-import java.util.List;
-
+import adri.chess.engine.ChessColor;
+import adri.chess.engine.board.BitBoard;
 import adri.chess.engine.board.Board;
-import adri.chess.engine.board.BoardUtils;
-import adri.chess.engine.board.Move;
 import adri.chess.engine.pieces.Piece;
 import adri.chess.engine.player.Player;
 
@@ -16,9 +13,6 @@ public class EnhancedBoardEvaluator implements BoardEvaluator {
     private static final int CASTLE_BONUS = 60;
     private static final int STALE_MATE_PENALTY = -1000;
 
-    private List<Long> history = new ArrayList<>();
-    private long currHash;
-
     @Override
     public int evaluate(final Board board) {
         return /* staleMatePenalty(board) + */  // position is equal if in stalemate (also discourages repetitions)
@@ -29,6 +23,13 @@ public class EnhancedBoardEvaluator implements BoardEvaluator {
                castleValue(board);
     }
 
+    // the shared material and mobility terms, plus the castle bonus the standard evaluator doesn't give
+    @Override
+    public int evaluate(final BitBoard position) {
+        final ChessColor us = position.getSideToMove();
+        return BoardEvaluator.super.evaluate(position) + castleValue(position, us) - castleValue(position, us.getOpposite());
+    }
+
     private static int materialValue(final Player player) {
         int pieceValueScore = 0;
         int enemyValueScore = 0;
@@ -41,16 +42,6 @@ public class EnhancedBoardEvaluator implements BoardEvaluator {
         return pieceValueScore - enemyValueScore;
     }
 
-    public void logBoardHistory(Board board, Move move) {
-        if (history.size() == 0) {
-            currHash = BoardUtils.computeFullHash(board);
-            history.add(currHash);
-        } else {
-            currHash = BoardUtils.updateHash(currHash, move);
-            history.add(currHash);
-        }
-    } 
-
     private int checkValue(Board board) {
         return board.getCurrentPlayer().getOpponent().isInCheck() ? CHECK_BONUS : 0;
     }
@@ -60,7 +51,7 @@ public class EnhancedBoardEvaluator implements BoardEvaluator {
     }
 
     private int staleMatePenalty(Board board) {
-        return (board.getCurrentPlayer().isInStaleMate() || isThreeFoldRepetition(history, currHash)) ? STALE_MATE_PENALTY : 0;
+        return (board.getCurrentPlayer().isInStaleMate() || board.isThreefoldRepetition()) ? STALE_MATE_PENALTY : 0;
     }
 
     private int gameOverPenalty(Board board) {
@@ -75,15 +66,15 @@ public class EnhancedBoardEvaluator implements BoardEvaluator {
         return board.getCurrentPlayer().isCastled() ? CASTLE_BONUS : 0;
     }
 
-    private boolean isThreeFoldRepetition(List<Long> history, long currHash) {
-        int count = 0;
-        for (int i = history.size() - 1; i >= 0; i--) {
-            if (history.get(i) == currHash) {
-                count++;
-                if (count >= 3) return true;
-            }
-        }
-
-        return false;
+    // A BitBoard doesn't remember castling, so a king and rook standing where castling puts them count.
+    // Squares from a8 = 0: g1/f1 and c1/d1 for white, g8/f8 and c8/d8 for black.
+    private static int castleValue(final BitBoard position, final ChessColor color) {
+        final int offset = BitBoard.pieceColorOffset(color);
+        final int backRank = color.isWhite() ? 56 : 0;
+        final long king = position.getPieceBoard(offset + BitBoard.WHITE_KING);
+        final long rooks = position.getPieceBoard(offset + BitBoard.WHITE_ROOK);
+        final boolean kingSide = (king & 1L << (backRank + 6)) != 0 && (rooks & 1L << (backRank + 5)) != 0;
+        final boolean queenSide = (king & 1L << (backRank + 2)) != 0 && (rooks & 1L << (backRank + 3)) != 0;
+        return kingSide || queenSide ? CASTLE_BONUS : 0;
     }
 }
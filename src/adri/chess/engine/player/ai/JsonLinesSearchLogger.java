@@ -0,0 +1,40 @@
+package adri.chess.engine.player.ai;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+// Appends every search's stats to a file, one JSON object per line.
+// Each line is flushed as it's written, so a crashed game still leaves its searches behind.
+public class JsonLinesSearchLogger implements SearchListener, AutoCloseable {
+
+    private final Writer writer;
+
+    public JsonLinesSearchLogger(final Path file) throws IOException {
+        this.writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+    }
+
+    public JsonLinesSearchLogger(final Writer writer) {
+        this.writer = writer instanceof BufferedWriter ? writer : new BufferedWriter(writer);
+    }
+
+    @Override
+    public synchronized void searchFinished(final SearchStats stats) {
+        try {
+            this.writer.write(stats.toJson());
+            this.writer.write('\n');
+            this.writer.flush();
+        } catch (IOException e) {
+            throw new RuntimeException("Could not write search stats", e);
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        this.writer.close();
+    }
+}
@@ -0,0 +1,252 @@
+package adri.chess.engine.player.ai;
+
+import adri.chess.engine.board.BitBoard;
+import adri.chess.engine.board.Board;
+import adri.chess.engine.board.Move;
+import adri.chess.engine.board.MoveGenerator;
+import adri.chess.engine.board.MoveList;
+import adri.chess.engine.board.PackedMove;
+import adri.chess.pgn.FenUtilities;
+
+// Answers "is there a forced mate in N" with depth-first proof-number search (df-pn).
+// The attacker only plays checks and the defender every legal reply, so the tree is tiny
+// next to a full width search, and instead of scores each node keeps two counters: how many
+// leaves still have to be proven to show the side to move wins (phi), and how many to show
+// it doesn't (delta). The search always goes down the most promising line, only as far as
+// the thresholds its parent gave it, and comes back up once a counter goes past them.
+// A mate that needs a quiet attacking move along the way is out of its reach.
+//
+//   java adri.chess.engine.player.ai.MateSolver [options] <moves> <fen>
+//     -hash MB     proof number table size (default 64)
+//     -compare     also time BotMove4 to the same depth
+public class MateSolver implements Bot {
+
+    private static final int INFINITY = 100000000; // a proven or disproven counter, sums stop here
+    private static final int MAX_PLY = 128;
+
+    private final ProofNumberTable table;
+    private final MoveList[] legalMoves; // one per ply, like the bots
+    private final MoveList[] checks;
+    private final long[][] childKeys; // per ply, the key after each child move, so children are probed without playing them
+    private long numPositions;
+    private int mateIn; // moves, of the last mate found, 0 if there was none
+    private final SearchReporter searchReporter;
+
+    public MateSolver() {
+        this(64);
+    }
+
+    public MateSolver(final int hashSize) { // in MB
+        this.table = new ProofNumberTable(hashSize);
+        this.legalMoves = new MoveList[MAX_PLY];
+        this.checks = new MoveList[MAX_PLY];
+        for (int i = 0; i < MAX_PLY; i++) {
+            this.legalMoves[i] = new MoveList();
+            this.checks[i] = new MoveList();
+        }
+        this.childKeys = new long[MAX_PLY][MoveList.MAX_MOVES];
+        this.searchReporter = new SearchReporter();
+    }
+
+    public SearchReporter getSearchReporter() {
+        return this.searchReporter;
+    }
+
+    // the first move of the shortest forced mate in at most depth moves, or null
+    public Move execute(Board board, final int depth) {
+        final int move = solve(BitBoard.fromBoard(board), depth);
+        return move == PackedMove.NONE ? null : PackedMove.toMove(board, move);
+    }
+
+    // moves to the shortest forced mate in at most depth moves, 0 if there is none
+    public int search(final Board board, final int depth) {
+        solve(BitBoard.fromBoard(board), depth);
+        return this.mateIn;
+    }
+
+    // mate in 1, then in 2... so the first proof is the shortest mate, the short tries cost next to nothing
+    public int solve(final BitBoard position, final int maxMoves) {
+        final long startTime = System.currentTimeMillis();
+        this.numPositions = 0;
+        this.mateIn = 0;
+        int matingMove = PackedMove.NONE;
+        int pliesSearched = 0;
+        for (int moves = 1; moves <= maxMoves && 2 * moves - 1 < MAX_PLY - position.getPly(); moves++) {
+            final int pliesLeft = 2 * moves - 1;
+            pliesSearched = pliesLeft;
+            // no thresholds, it only comes back once the root is proven or disproven
+            expand(position, INFINITY, INFINITY, pliesLeft);
+            final long entry = this.table.probe(position.getHash(), pliesLeft);
+            if (entry != ProofNumberTable.NO_ENTRY && ProofNumberTable.getProofNumber(entry) == 0) {
+                this.mateIn = moves;
+                matingMove = matingMove(position, pliesLeft);
+                break;
+            }
+        }
+
+        // the score is the number of moves to mate, 0 if none was found
+        this.searchReporter.publish(new SearchStats.Builder("MateSolver")
+            .setBestMove(matingMove == PackedMove.NONE ? "none" : PackedMove.toString(matingMove))
+            .setScore(this.mateIn)
+            .setTime(System.currentTimeMillis() - startTime)
+            .setNodes(this.numPositions)
+            .setDepth(pliesSearched)
+            .setSelectiveDepth(pliesSearched)
+            .build());
+        return matingMove;
+    }
+
+    // a check after which the defender is proven lost
+    private int matingMove(final BitBoard position, final int pliesLeft) {
+        final int ply = position.getPly();
+        generateChildren(position, true);
+        final MoveList moves = this.checks[ply];
+        for (int i = 0; i < moves.size(); i++) {
+            final long entry = this.table.probe(this.childKeys[ply][i], pliesLeft - 1);
+            if (entry != ProofNumberTable.NO_ENTRY && ProofNumberTable.getDisproofNumber(entry) == 0) {
+                return moves.get(i);
+            }
+        }
+        return PackedMove.NONE;
+    }
+
+    // Works on the node until phi reaches thresholdPhi or delta reaches thresholdDelta, then
+    // stores both. The attacker moves with an odd number of plies left, the defender with even.
+    private void expand(final BitBoard position, final int thresholdPhi, final int thresholdDelta, final int pliesLeft) {
+        this.numPositions++;
+        final long key = position.getHash();
+        final int ply = position.getPly();
+        final boolean attacker = (pliesLeft & 1) == 1;
+        final MoveList moves = generateChildren(position, attacker);
+
+        // no checks left for the attacker, or mated, stalemated or out of plies for the defender
+        if (moves.isEmpty()) {
+            final boolean won = !attacker && !MoveGenerator.isInCheck(position);
+            this.table.store(key, pliesLeft, won ? 0 : INFINITY, won ? INFINITY : 0);
+            return;
+        }
+        if (pliesLeft == 0) {
+            this.table.store(key, pliesLeft, 0, INFINITY);
+            return;
+        }
+
+        final long[] keys = this.childKeys[ply];
+        while (true) {
+            // the side to move wins if one child loses, and loses if every child wins
+            int phi = INFINITY;
+            int delta = 0;
+            int best = 0;
+            int bestPhi = 0;
+            int secondDelta = INFINITY;
+            for (int i = 0; i < moves.size(); i++) {
+                final long entry = this.table.probe(keys[i], pliesLeft - 1);
+                final int childPhi = entry == ProofNumberTable.NO_ENTRY ? 1 : ProofNumberTable.getProofNumber(entry);
+                final int childDelta = entry == ProofNumberTable.NO_ENTRY ? 1 : ProofNumberTable.getDisproofNumber(entry);
+                if (childDelta < phi) {
+                    secondDelta = phi;
+                    phi = childDelta;
+                    best = i;
+                    bestPhi = childPhi;
+                } else if (childDelta < secondDelta) {
+                    secondDelta = childDelta;
+                }
+                delta = Math.min(INFINITY, delta + childPhi);
+            }
+
+            if (phi >= thresholdPhi || delta >= thresholdDelta) {
+                this.table.store(key, pliesLeft, phi, delta);
+                return;
+            }
+
+            // the child stays below what would make it stop being the best, or push this node past its thresholds
+            final int childThresholdPhi = (int) Math.min(INFINITY, (long) thresholdDelta - delta + bestPhi);
+            final int childThresholdDelta = Math.min(thresholdPhi, secondDelta + 1);
+            position.makeMove(moves.get(best));
+            expand(position, childThresholdPhi, childThresholdDelta, pliesLeft - 1);
+            position.unmakeMove();
+        }
+    }
+
+    // the attacker's checks or every legal reply of the defender, each child's key alongside
+    private MoveList generateChildren(final BitBoard position, final boolean attacker) {
+        final int ply = position.getPly();
+        final MoveList legal = this.legalMoves[ply];
+        MoveGenerator.generateLegalMoves(position, legal);
+        final long[] keys = this.childKeys[ply];
+        if (!attacker) {
+            for (int i = 0; i < legal.size(); i++) {
+                position.makeMove(legal.get(i));
+                keys[i] = position.getHash();
+                position.unmakeMove();
+            }
+            return legal;
+        }
+
+        final MoveList checks = this.checks[ply];
+        checks.clear();
+        for (int i = 0; i < legal.size(); i++) {
+            final int move = legal.get(i);
+            position.makeMove(move);
+            if (MoveGenerator.isInCheck(position)) {
+                keys[checks.size()] = position.getHash();
+                checks.add(move);
+            }
+            position.unmakeMove();
+        }
+        return checks;
+    }
+
+    public long getNumPositions() {
+        return this.numPositions;
+    }
+
+    public int getMateIn() {
+        return this.mateIn;
+    }
+
+    public static void main(String[] args) {
+        int hashMegabytes = 64;
+        boolean compare = false;
+        int moves = -1;
+        final StringBuilder fen = new StringBuilder();
+
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "-hash" -> hashMegabytes = Integer.parseInt(args[++i]);
+                case "-compare" -> compare = true;
+                default -> {
+                    if (moves < 0) {
+                        moves = Integer.parseInt(args[i]);
+                    } else {
+                        fen.append(args[i]).append(' ');
+                    }
+                }
+            }
+        }
+        if (moves < 1 || fen.length() == 0) {
+            System.out.println("Usage: MateSolver [-hash MB] [-compare] <moves> <fen>");
+            return;
+        }
+
+        final MateSolver solver = new MateSolver(hashMegabytes);
+        long startTime = System.nanoTime();
+        final int move = solver.solve(FenUtilities.createPositionFromFEN(fen.toString()), moves);
+        long elapsed = Math.max(1, System.nanoTime() - startTime);
+        if (move == PackedMove.NONE) {
+            System.out.println("No mate in " + moves);
+        } else {
+            System.out.println("Mate in " + solver.getMateIn() + ": " + PackedMove.toString(move));
+        }
+        System.out.println("Nodes: " + solver.getNumPositions() + ", time: " + elapsed / 1000000 + "ms");
+
+        if (compare) {
+            // a mate in N is 2N - 1 plies deep
+            final BotMove4 bot = new BotMove4(hashMegabytes, 1);
+            startTime = System.nanoTime();
+            final int botMove = bot.think(FenUtilities.createPositionFromFEN(fen.toString()), 2 * moves - 1, Long.MAX_VALUE / 4);
+            elapsed = Math.max(1, System.nanoTime() - startTime);
+            System.out.println("BotMove4 at depth " + (2 * moves - 1) + ": " + PackedMove.toString(botMove) +
+                               ", nodes: " + bot.getNumPositions() + ", time: " + elapsed / 1000000 + "ms");
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package adri.chess.engine.player.ai;
+
+import adri.chess.engine.board.BitBoard;
+import adri.chess.engine.board.PackedMove;
+
+// Capture ordering shared by the searches and the playout policies.
+public class MoveOrdering {
+
+    private MoveOrdering() {
+        throw new RuntimeException("Cannot instantiate MoveOrdering");
+    }
+
+    // most valuable victim first, least valuable attacker among equal victims
+    public static int mvvLva(final int move, final BitBoard position) {
+        int moveScore = captureValue(move, position) * 10 - position.pieceAt(PackedMove.getFrom(move)) % 6;
+        if (PackedMove.isPromotion(move)) {
+            moveScore += pieceValue(PackedMove.getPromotionPiece(move, position.getSideToMove())) * 10;
+        }
+        return moveScore;
+    }
+
+    // the value of the piece the move takes, 0 for a quiet move
+    public static int captureValue(final int move, final BitBoard position) {
+        if (!PackedMove.isCapture(move)) {
+            return 0;
+        }
+        return PackedMove.getFlags(move) == PackedMove.EN_PASSANT ? BitBoard.PIECE_TYPES[BitBoard.WHITE_PAWN].getPieceValue()
+                                                                  : pieceValue(position.pieceAt(PackedMove.getTo(move)));
+    }
+
+    private static int pieceValue(final int pieceIndex) {
+        return BitBoard.PIECE_TYPES[pieceIndex % 6].getPieceValue();
+    }
+}
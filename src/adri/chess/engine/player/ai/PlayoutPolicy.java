@@ -0,0 +1,12 @@
+package adri.chess.engine.player.ai;
+
+import adri.chess.engine.board.BitBoard;
+import adri.chess.engine.board.MoveList;
+
+// How BotMove6 plays out a position once it leaves the tree, until the policy stops it or
+// BotMove6's ply limit does. Called from every search thread at once, so implementations
+// keep no state of their own.
+public interface PlayoutPolicy {
+
+    int selectMove(BitBoard position, MoveList moves); // moves holds the legal moves, never empty; PackedMove.NONE stops here
+}
@@ -0,0 +1,58 @@
+package adri.chess.engine.player.ai;
+
+import java.util.Arrays;
+
+// Proof and disproof numbers by Zobrist key and plies left, for MateSolver.
+// A position's numbers only hold for the plies that were left when they were worked out,
+// so those go into the key. Single threaded, a slot just keeps whatever was written last.
+public class ProofNumberTable {
+
+    public static final long NO_ENTRY = -1L; // no real entry packs to a negative number
+
+    private static final int BYTES_PER_ENTRY = 16;
+
+    private final long[] keys;
+    private final long[] data; // proof number << 32 | disproof number
+    private final int mask;
+
+    public ProofNumberTable(final int megabytes) {
+        // largest power of two number of entries that fits
+        final long entries = Long.highestOneBit(Math.max(1L, (long) megabytes * 1024 * 1024 / BYTES_PER_ENTRY));
+        final int size = (int) Math.min(entries, 1 << 30);
+        this.keys = new long[size];
+        this.data = new long[size];
+        this.mask = size - 1;
+        clear();
+    }
+
+    // the packed numbers stored for this position and plies left, or NO_ENTRY
+    public long probe(final long key, final int pliesLeft) {
+        final long slotKey = slotKey(key, pliesLeft);
+        final int index = (int) slotKey & this.mask;
+        return this.keys[index] == slotKey ? this.data[index] : NO_ENTRY;
+    }
+
+    public void store(final long key, final int pliesLeft, final int proofNumber, final int disproofNumber) {
+        final long slotKey = slotKey(key, pliesLeft);
+        final int index = (int) slotKey & this.mask;
+        this.keys[index] = slotKey;
+        this.data[index] = (long) proofNumber << 32 | disproofNumber;
+    }
+
+    public void clear() {
+        Arrays.fill(this.keys, 0L);
+        Arrays.fill(this.data, NO_ENTRY);
+    }
+
+    public static int getProofNumber(final long entry) {
+        return (int) (entry >>> 32);
+    }
+
+    public static int getDisproofNumber(final long entry) {
+        return (int) entry;
+    }
+
+    private static long slotKey(final long key, final int pliesLeft) {
+        return key ^ pliesLeft * 0x9E3779B97F4A7C15L;
+    }
+}
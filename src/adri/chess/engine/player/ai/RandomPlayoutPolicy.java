@@ -0,0 +1,15 @@
+package adri.chess.engine.player.ai;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+import adri.chess.engine.board.BitBoard;
+import adri.chess.engine.board.MoveList;
+
+// Any legal move, all equally likely. Cheapest per playout, but it throws pieces away.
+public class RandomPlayoutPolicy implements PlayoutPolicy {
+
+    @Override
+    public int selectMove(final BitBoard position, final MoveList moves) {
+        return moves.get(ThreadLocalRandom.current().nextInt(moves.size()));
+    }
+}
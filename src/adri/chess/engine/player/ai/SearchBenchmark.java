@@ -0,0 +1,124 @@
+package adri.chess.engine.player.ai;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+import adri.chess.engine.board.BitBoard;
+import adri.chess.pgn.FenUtilities;
+
+// Times BotMove4 to a fixed depth on 1, 2, 4... threads, to measure what Lazy SMP buys.
+// Every run starts from an empty transposition table.
+// With -ybwc it times BotMove5 instead, and checks each thread count finds the same moves.
+//
+//   java adri.chess.engine.player.ai.SearchBenchmark [options] <depth> [fen]
+//     -threads N   highest thread count to try (default: all cores)
+//     -hash MB     transposition table size (default 64)
+//     -ybwc        fork/join Young Brothers Wait search instead of Lazy SMP
+//     -log FILE    append every timed search's stats to FILE as JSON lines
+public class SearchBenchmark {
+
+    private static final String[] DEFAULT_FENS = {
+        "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1",
+        "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1",
+        "r1bq1rk1/pp2bppp/2n1pn2/3p4/2PP4/2N1PN2/PP3PPP/R2QKB1R w KQ - 0 8"
+    };
+
+    private SearchBenchmark() {
+        throw new RuntimeException("Not instantiable");
+    }
+
+    public static void main(String[] args) throws IOException {
+        int maxThreads = Runtime.getRuntime().availableProcessors();
+        int hashMegabytes = 64;
+        boolean youngBrothersWait = false;
+        String logFile = null;
+        int depth = -1;
+        final StringBuilder fen = new StringBuilder();
+
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "-threads" -> maxThreads = Integer.parseInt(args[++i]);
+                case "-hash" -> hashMegabytes = Integer.parseInt(args[++i]);
+                case "-ybwc" -> youngBrothersWait = true;
+                case "-log" -> logFile = args[++i];
+                default -> {
+                    if (depth < 0) {
+                        depth = Integer.parseInt(args[i]);
+                    } else {
+                        fen.append(args[i]).append(' ');
+                    }
+                }
+            }
+        }
+        if (depth < 1) {
+            System.out.println("Usage: SearchBenchmark [-threads N] [-hash MB] [-ybwc] [-log FILE] <depth> [fen]");
+            return;
+        }
+
+        final String[] fens = fen.length() == 0 ? DEFAULT_FENS : new String[]{fen.toString().trim()};
+        final List<Integer> threadCounts = new ArrayList<>();
+        for (int threads = 1; threads < maxThreads; threads *= 2) {
+            threadCounts.add(threads);
+        }
+        threadCounts.add(maxThreads);
+
+        // one untimed pass first, or the single thread numbers include the JIT compiling the search
+        for (final String position : fens) {
+            if (youngBrothersWait) {
+                new BotMove5(1).think(FenUtilities.createPositionFromFEN(position), depth);
+            } else {
+                new BotMove4(hashMegabytes, 1).think(FenUtilities.createPositionFromFEN(position), depth, Long.MAX_VALUE / 4);
+            }
+        }
+
+        final JsonLinesSearchLogger searchLogger = logFile == null ? null : new JsonLinesSearchLogger(Paths.get(logFile));
+        long singleThreadTime = 0;
+        final int[] singleThreadMoves = new int[fens.length];
+        for (final int threads : threadCounts) {
+            long totalTime = 0;
+            long totalNodes = 0;
+            double totalBranchingFactor = 0.0;
+            boolean sameMoves = true;
+            for (int i = 0; i < fens.length; i++) {
+                final BitBoard root = FenUtilities.createPositionFromFEN(fens[i]);
+                final long startTime = System.nanoTime();
+                final int bestMove;
+                if (youngBrothersWait) {
+                    final BotMove5 bot = new BotMove5(threads);
+                    if (searchLogger != null) {
+                        bot.addSearchListener(searchLogger);
+                    }
+                    bestMove = bot.think(root, depth);
+                    totalNodes += bot.getNumPositions();
+                } else {
+                    final BotMove4 bot = new BotMove4(hashMegabytes, threads);
+                    if (searchLogger != null) {
+                        bot.addSearchListener(searchLogger);
+                    }
+                    bestMove = bot.think(root, depth, Long.MAX_VALUE / 4); // no clock, only the depth stops it
+                    totalNodes += bot.getNumPositions();
+                    totalBranchingFactor += bot.getBranchingFactor();
+                }
+                totalTime += Math.max(1, System.nanoTime() - startTime);
+                if (threads == 1) {
+                    singleThreadMoves[i] = bestMove;
+                }
+                sameMoves &= bestMove == singleThreadMoves[i];
+            }
+            if (threads == 1) {
+                singleThreadTime = totalTime;
+            }
+            // BotMove5 searches its one depth straight away, it has no iterations to compare
+            final String branchingFactor = youngBrothersWait ? "" : String.format(", branching factor %.2f", totalBranchingFactor / fens.length);
+            System.out.printf("threads %2d: time-to-depth %6dms, %10d nodes, %8d nps, speedup %.2f%s%s%n",
+                              threads, totalTime / 1000000, totalNodes, totalNodes * 1000000000L / totalTime,
+                              (double) singleThreadTime / totalTime, branchingFactor,
+                              sameMoves ? "" : ", moves differ from 1 thread");
+        }
+        if (searchLogger != null) {
+            searchLogger.close();
+        }
+    }
+}
@@ -0,0 +1,7 @@
+package adri.chess.engine.player.ai;
+
+// Told about every search a bot finishes, on the thread that ran it.
+public interface SearchListener {
+
+    void searchFinished(SearchStats stats);
+}
@@ -0,0 +1,38 @@
+package adri.chess.engine.player.ai;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+// A bot's search listeners and the stats of its last search. Every bot keeps one,
+// and Bot's default methods reach it through getSearchReporter().
+public class SearchReporter {
+
+    private final List<SearchListener> listeners;
+    private volatile SearchStats lastSearchStats;
+
+    public SearchReporter() {
+        this.listeners = new CopyOnWriteArrayList<>();
+    }
+
+    public void addListener(final SearchListener listener) {
+        this.listeners.add(listener);
+    }
+
+    public void removeListener(final SearchListener listener) {
+        this.listeners.remove(listener);
+    }
+
+    // null before the first search
+    public SearchStats getLastSearchStats() {
+        return this.lastSearchStats;
+    }
+
+    // keeps the stats as the last search's and hands them to every listener
+    public SearchStats publish(final SearchStats stats) {
+        this.lastSearchStats = stats;
+        for (final SearchListener listener : this.listeners) {
+            listener.searchFinished(stats);
+        }
+        return stats;
+    }
+}
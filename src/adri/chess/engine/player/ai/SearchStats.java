@@ -0,0 +1,228 @@
+package adri.chess.engine.player.ai;
+
+import java.util.Arrays;
+
+// What one search did, built by the bot once it's done. Counters a bot doesn't keep stay 0.
+public class SearchStats {
+
+    private final String bot;
+    private final String bestMove;
+    private final int score;
+    private final int threads;
+    private final long time; // in ms
+    private final long nodes; // every position searched, quiescence included
+    private final long quiescenceNodes;
+    private final int depth; // last iteration that finished
+    private final int selectiveDepth; // deepest ply reached, extensions and quiescence included
+    private final double branchingFactor;
+    private final long cutoffs; // beta cutoffs by a move
+    private final long firstMoveCutoffs; // of those, by the first move searched
+    private final long tableProbes;
+    private final long tableHits;
+    private final long[] iterationTimes; // in ms, per finished iteration
+
+    private SearchStats(final Builder builder) {
+        this.bot = builder.bot;
+        this.bestMove = builder.bestMove;
+        this.score = builder.score;
+        this.threads = builder.threads;
+        this.time = builder.time;
+        this.nodes = builder.nodes;
+        this.quiescenceNodes = builder.quiescenceNodes;
+        this.depth = builder.depth;
+        this.selectiveDepth = builder.selectiveDepth;
+        this.branchingFactor = builder.branchingFactor;
+        this.cutoffs = builder.cutoffs;
+        this.firstMoveCutoffs = builder.firstMoveCutoffs;
+        this.tableProbes = builder.tableProbes;
+        this.tableHits = builder.tableHits;
+        this.iterationTimes = builder.iterationTimes;
+    }
+
+    public String getBot() {
+        return this.bot;
+    }
+
+    public String getBestMove() {
+        return this.bestMove;
+    }
+
+    public int getScore() {
+        return this.score;
+    }
+
+    public int getThreads() {
+        return this.threads;
+    }
+
+    public long getTime() {
+        return this.time;
+    }
+
+    public long getNodes() {
+        return this.nodes;
+    }
+
+    public long getQuiescenceNodes() {
+        return this.quiescenceNodes;
+    }
+
+    public long getNodesPerSecond() {
+        return this.nodes * 1000 / Math.max(1, this.time);
+    }
+
+    public int getDepth() {
+        return this.depth;
+    }
+
+    public int getSelectiveDepth() {
+        return this.selectiveDepth;
+    }
+
+    public double getBranchingFactor() {
+        return this.branchingFactor;
+    }
+
+    public long getCutoffs() {
+        return this.cutoffs;
+    }
+
+    // near 1 means the move ordering puts the refutation first almost every time
+    public double getFirstMoveCutoffRate() {
+        return this.cutoffs == 0 ? 0.0 : (double) this.firstMoveCutoffs / this.cutoffs;
+    }
+
+    public long getTableProbes() {
+        return this.tableProbes;
+    }
+
+    public long getTableHits() {
+        return this.tableHits;
+    }
+
+    public long[] getIterationTimes() {
+        return this.iterationTimes.clone();
+    }
+
+    // one line, no nesting, so a log of these can be read a line at a time
+    public String toJson() {
+        return "{\"bot\":\"" + this.bot + "\"" +
+               ",\"timestamp\":" + System.currentTimeMillis() +
+               ",\"bestMove\":\"" + this.bestMove + "\"" +
+               ",\"score\":" + this.score +
+               ",\"threads\":" + this.threads +
+               ",\"timeMs\":" + this.time +
+               ",\"nodes\":" + this.nodes +
+               ",\"quiescenceNodes\":" + this.quiescenceNodes +
+               ",\"nps\":" + getNodesPerSecond() +
+               ",\"depth\":" + this.depth +
+               ",\"selDepth\":" + this.selectiveDepth +
+               ",\"branchingFactor\":" + round(this.branchingFactor) +
+               ",\"firstMoveCutoffRate\":" + round(getFirstMoveCutoffRate()) +
+               ",\"ttProbes\":" + this.tableProbes +
+               ",\"ttHits\":" + this.tableHits +
+               ",\"iterationTimesMs\":" + Arrays.toString(this.iterationTimes).replace(" ", "") +
+               "}";
+    }
+
+    private static double round(final double value) {
+        return Math.round(value * 1000) / 1000.0;
+    }
+
+    @Override
+    public String toString() {
+        return toJson();
+    }
+
+    public static class Builder {
+
+        private String bot;
+        private String bestMove;
+        private int score;
+        private int threads;
+        private long time;
+        private long nodes;
+        private long quiescenceNodes;
+        private int depth;
+        private int selectiveDepth;
+        private double branchingFactor;
+        private long cutoffs;
+        private long firstMoveCutoffs;
+        private long tableProbes;
+        private long tableHits;
+        private long[] iterationTimes;
+
+        public Builder(final String bot) {
+            this.bot = bot;
+            this.bestMove = "none";
+            this.threads = 1;
+            this.iterationTimes = new long[0];
+        }
+
+        public Builder setBestMove(final String bestMove) {
+            this.bestMove = bestMove;
+            return this;
+        }
+
+        public Builder setScore(final int score) {
+            this.score = score;
+            return this;
+        }
+
+        public Builder setThreads(final int threads) {
+            this.threads = threads;
+            return this;
+        }
+
+        public Builder setTime(final long time) {
+            this.time = time;
+            return this;
+        }
+
+        public Builder setNodes(final long nodes) {
+            this.nodes = nodes;
+            return this;
+        }
+
+        public Builder setQuiescenceNodes(final long quiescenceNodes) {
+            this.quiescenceNodes = quiescenceNodes;
+            return this;
+        }
+
+        public Builder setDepth(final int depth) {
+            this.depth = depth;
+            return this;
+        }
+
+        public Builder setSelectiveDepth(final int selectiveDepth) {
+            this.selectiveDepth = selectiveDepth;
+            return this;
+        }
+
+        public Builder setBranchingFactor(final double branchingFactor) {
+            this.branchingFactor = branchingFactor;
+            return this;
+        }
+
+        public Builder setCutoffs(final long cutoffs, final long firstMoveCutoffs) {
+            this.cutoffs = cutoffs;
+            this.firstMoveCutoffs = firstMoveCutoffs;
+            return this;
+        }
+
+        public Builder setTableProbes(final long tableProbes, final long tableHits) {
+            this.tableProbes = tableProbes;
+            this.tableHits = tableHits;
+            return this;
+        }
+
+        public Builder setIterationTimes(final long[] iterationTimes) {
+            this.iterationTimes = iterationTimes.clone();
+            return this;
+        }
+
+        public SearchStats build() {
+            return new SearchStats(this);
+        }
+    }
+}
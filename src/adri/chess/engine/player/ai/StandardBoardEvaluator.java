@@ -1,7 +1,6 @@
 package adri.chess.engine.player.ai;
 
 import adri.chess.engine.board.Board;
-import adri.chess.engine.board.Move;
 import adri.chess.engine.pieces.Piece;
 import adri.chess.engine.player.Player;
 
@@ -45,11 +44,4 @@ public class StandardBoardEvaluator implements BoardEvaluator {
     private static int boardControlValue(Board board) {
         return board.getCurrentPlayer().getLegalMoves().size();
     }
-    
-    @Override
-    public void logBoardHistory(Board board, Move move) {
-        // TODO Auto-generated method stub
-        throw new UnsupportedOperationException("Unimplemented method 'logBoardHistory'");
-    }
-
 }
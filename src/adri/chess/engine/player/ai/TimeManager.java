@@ -0,0 +1,49 @@
+package adri.chess.engine.player.ai;
+
+// A bot's game clock: a base time plus an increment added after every move.
+// Each move gets a slice of what is left, so the bot speeds up as its clock runs down
+// instead of spending the same fixed time whatever the situation.
+public class TimeManager {
+
+    private static final int MOVES_TO_GO = 30; // moves the remaining time is assumed to cover
+    private static final long SAFETY_MARGIN = 50; // in ms, never planned for
+    private static final long MIN_MOVE_TIME = 10; // in ms
+
+    private final long baseTime; // in ms
+    private final long increment; // in ms
+    private long remainingTime; // in ms
+
+    public TimeManager(final long baseTime, final long increment) {
+        this.baseTime = baseTime;
+        this.remainingTime = baseTime;
+        this.increment = increment;
+    }
+
+    // a new game, the whole base time is back
+    public void reset() {
+        this.remainingTime = this.baseTime;
+    }
+
+    // time to spend on the next move, in ms
+    public long allocateTime() {
+        final long share = this.remainingTime / MOVES_TO_GO + this.increment * 3 / 4;
+        return Math.max(MIN_MOVE_TIME, Math.min(share, this.remainingTime - SAFETY_MARGIN));
+    }
+
+    // the search stops deepening once it has used this much, the next depth would not finish
+    public static long softLimit(final long allocatedTime) {
+        return allocatedTime / 2;
+    }
+
+    public void recordMove(final long elapsedTime) {
+        this.remainingTime = Math.max(0, this.remainingTime - elapsedTime) + this.increment;
+    }
+
+    public long getRemainingTime() {
+        return this.remainingTime;
+    }
+
+    public long getIncrement() {
+        return this.increment;
+    }
+}
@@ -0,0 +1,136 @@
+package adri.chess.engine.player.ai;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.LongAdder;
+
+// Fixed size hash table of search results, indexed by Zobrist key.
+// Entries live in two primitive arrays: data, and key ^ data. A reader only accepts a slot
+// whose two halves agree with its key, so several search threads can share the table
+// without locks; a slot torn by two writers just reads as a miss.
+//
+// data layout, low to high bits:
+//   0-15   best move (PackedMove)
+//   16-47  score
+//   48-55  depth
+//   56-57  bound type
+//   58-63  generation, to prefer replacing entries left over from earlier searches
+public class TranspositionTable {
+
+    public static final int EXACT = 1;
+    public static final int LOWER_BOUND = 2; // failed high, score is at least this
+    public static final int UPPER_BOUND = 3; // failed low, score is at most this
+
+    public static final long NO_ENTRY = 0L;
+
+    private static final int BYTES_PER_ENTRY = 16;
+    private static final int FILL_SAMPLE = 1000;
+
+    private final long[] keys;
+    private final long[] data;
+    private final int mask;
+    private int generation;
+
+    private final LongAdder probes = new LongAdder();
+    private final LongAdder hits = new LongAdder();
+
+    public TranspositionTable(final int megabytes) {
+        // largest power of two number of entries that fits
+        final long entries = Long.highestOneBit(Math.max(1L, (long) megabytes * 1024 * 1024 / BYTES_PER_ENTRY));
+        final int size = (int) Math.min(entries, 1 << 30);
+        this.keys = new long[size];
+        this.data = new long[size];
+        this.mask = size - 1;
+        this.generation = 0;
+    }
+
+    // the packed entry stored for this key, or NO_ENTRY
+    public long probe(final long key) {
+        this.probes.increment();
+        final int index = (int) key & this.mask;
+        final long entry = this.data[index];
+        if (entry == NO_ENTRY || (this.keys[index] ^ entry) != key) {
+            return NO_ENTRY;
+        }
+        this.hits.increment();
+        return entry;
+    }
+
+    public void store(final long key, final int depth, final int bound, final int score, final int move) {
+        final int index = (int) key & this.mask;
+        final long old = this.data[index];
+        // keep a deeper result for another position from this search over a shallower new one
+        if (old != NO_ENTRY && (this.keys[index] ^ old) != key &&
+            getGeneration(old) == this.generation && getDepth(old) > depth) {
+            return;
+        }
+        final long entry = (move & 0xFFFFL) |
+                           (score & 0xFFFFFFFFL) << 16 |
+                           (long) (depth & 0xFF) << 48 |
+                           (long) bound << 56 |
+                           (long) this.generation << 58;
+        this.keys[index] = key ^ entry;
+        this.data[index] = entry;
+    }
+
+    // called once per search, older entries become the first to be replaced
+    public void newSearch() {
+        this.generation = (this.generation + 1) & 0x3F;
+        this.probes.reset();
+        this.hits.reset();
+    }
+
+    public void clear() {
+        Arrays.fill(this.keys, 0L);
+        Arrays.fill(this.data, 0L);
+    }
+
+    public static int getMove(final long entry) {
+        return (int) (entry & 0xFFFF);
+    }
+
+    public static int getScore(final long entry) {
+        return (int) (entry >>> 16);
+    }
+
+    public static int getDepth(final long entry) {
+        return (int) (entry >>> 48) & 0xFF;
+    }
+
+    public static int getBound(final long entry) {
+        return (int) (entry >>> 56) & 0x3;
+    }
+
+    private static int getGeneration(final long entry) {
+        return (int) (entry >>> 58) & 0x3F;
+    }
+
+    public long getProbes() {
+        return this.probes.sum();
+    }
+
+    public long getHits() {
+        return this.hits.sum();
+    }
+
+    // fraction of probes since newSearch() that found their position
+    public double getHitRate() {
+        final long probeCount = this.probes.sum();
+        return probeCount == 0 ? 0.0 : (double) this.hits.sum() / probeCount;
+    }
+
+    // fraction of slots written during this search, estimated from the first slots
+    public double getFillRate() {
+        final int sample = Math.min(FILL_SAMPLE, this.data.length);
+        int filled = 0;
+        for (int i = 0; i < sample; i++) {
+            if (this.data[i] != NO_ENTRY && getGeneration(this.data[i]) == this.generation) {
+                filled++;
+            }
+        }
+        return (double) filled / sample;
+    }
+
+    public int getSize() {
+        return this.data.length;
+    }
+}
@@ -19,6 +19,7 @@ import java.util.stream.Stream;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.file.Paths;
 import javax.imageio.ImageIO;
 
 import javax.swing.ImageIcon;
@@ -44,7 +45,6 @@ import adri.chess.engine.board.Move.EnPassantCapture;
 import adri.chess.engine.board.Move.MoveFactory;
 import adri.chess.engine.pieces.King;
 import adri.chess.engine.pieces.Piece;
-import adri.chess.engine.pieces.Queen;
 import adri.chess.engine.pieces.Piece.PieceType;
 import adri.chess.engine.player.MoveStatus;
 import adri.chess.engine.player.MoveUpdate;
@@ -53,6 +53,9 @@ import adri.chess.engine.player.ai.BotMove;
 import adri.chess.engine.player.ai.BotMove2;
 import adri.chess.engine.player.ai.BotMove3;
 import adri.chess.engine.player.ai.BotMove4;
+import adri.chess.engine.player.ai.ConsoleSearchLogger;
+import adri.chess.engine.player.ai.JsonLinesSearchLogger;
+import adri.chess.engine.player.ai.SearchListener;
 
 public class Table {
     // constants
@@ -60,7 +63,8 @@ public class Table {
     private static final Dimension BOARD_PANEL_DIMENSION = new Dimension(400, 350);
     private static final Dimension TILE_PANEL_DIMENSION = new Dimension(10, 10);
     private static final String imageFolderPath = "src/adri/chess/images/";
-    private static final int DEPTH = 4;
+    private static final int DEPTH = 32; // upper bound only, bots 3 and 4 deepen until their clock says stop
+    private static final SearchListener CONSOLE_LOGGER = new ConsoleSearchLogger(); // what the bots used to print themselves
 
     // game parts
     private Board chessBoard;
@@ -69,6 +73,10 @@ public class Table {
     private final GameHistoryPanel gameHistoryPanel;
     private final TakenPiecesPanel takenPiecesPanel;
 
+    // bots 3 and 4 keep their game clock (and bot 4 its transposition table) from move to move
+    private final BotMove3 bot3;
+    private final BotMove4 bot4;
+
     // internal parts
     private final MoveLog moveLog;
     private Tile selectTile;
@@ -92,6 +100,22 @@ public class Table {
         this.takenPiecesPanel = new TakenPiecesPanel();
         this.boardPanel = new BoardPanel();
         this.moveLog = new MoveLog();
+        this.bot3 = new BotMove3();
+        this.bot4 = new BotMove4();
+        this.bot4.setThreads(Runtime.getRuntime().availableProcessors());
+        this.bot3.addSearchListener(CONSOLE_LOGGER);
+        this.bot4.addSearchListener(CONSOLE_LOGGER);
+        // java -Dadri.searchLog=<file> appends the stats of every search bots 3 and 4 make, as JSON lines
+        final String searchLog = System.getProperty("adri.searchLog");
+        if (searchLog != null) {
+            try {
+                final JsonLinesSearchLogger searchLogger = new JsonLinesSearchLogger(Paths.get(searchLog));
+                this.bot3.addSearchListener(searchLogger);
+                this.bot4.addSearchListener(searchLogger);
+            } catch (IOException e) {
+                System.out.println("Not logging searches, can't open " + searchLog + ": " + e.getMessage());
+            }
+        }
         boardDirection = BoardDirection.REGULAR;
         //this.gameFrame.add(this.takenPiecesPanel, BorderLayout.WEST);
         this.gameFrame.add(this.boardPanel, BorderLayout.CENTER);
@@ -133,7 +157,6 @@ public class Table {
                 @Override
                 public void run() {
                     moveLog.addMove(move);
-                    Piece.setPromotionPiece(new Queen(move.getDestinationCoord(), chessBoard.getCurrentPlayer().getColor()));
                     boardPanel.drawBoard(chessBoard, false, true);
                 }
             });
@@ -154,6 +177,7 @@ public class Table {
                     simStep++;
                     System.out.println(simStep);
                     chessBoard = Board.createStandardBoard();
+                    resetBotClocks();
                     moveLog.getMoves().clear();
                     gameHistoryPanel.clearTable();
                     takenPiecesPanel.clear();
@@ -173,7 +197,6 @@ public class Table {
                 @Override
                 public void run() {
                     moveLog.addMove(generatedMove);
-                    Piece.setPromotionPiece(new Queen(generatedMove.getDestinationCoord(), chessBoard.getCurrentPlayer().getColor()));
                     boardPanel.drawBoard(chessBoard, false, true);
                 }
         });
@@ -181,6 +204,7 @@ public class Table {
 
     public void botPlay2(int depth) {
         BotMove2 generator = new BotMove2();
+        generator.addSearchListener(CONSOLE_LOGGER);
         Move generatedMove = generator.execute(chessBoard, depth);
         chessBoard = chessBoard.getCurrentPlayer().playMove(generatedMove).getBoard();
         
@@ -188,7 +212,6 @@ public class Table {
                 @Override
                 public void run() {
                     moveLog.addMove(generatedMove);
-                    Piece.setPromotionPiece(new Queen(generatedMove.getDestinationCoord(), chessBoard.getCurrentPlayer().getColor()));
                     boardPanel.drawBoard(chessBoard, false, true);
 
                     // Call the opponent bot
@@ -208,22 +231,22 @@ public class Table {
     }
 
     public void botPlay3(int depth) {
-        BotMove3 generator = new BotMove3();
-        Move generatedMove = generator.execute(chessBoard, depth);
+        Move generatedMove = bot3.execute(chessBoard, depth);
         chessBoard = chessBoard.getCurrentPlayer().playMove(generatedMove).getBoard();
         
         invokeLater(new Runnable() {
                 @Override
                 public void run() {
                     moveLog.addMove(generatedMove);
-                    Piece.setPromotionPiece(new Queen(generatedMove.getDestinationCoord(), chessBoard.getCurrentPlayer().getColor()));
                     boardPanel.drawBoard(chessBoard, false, true);
 
                     if (isBlackBot && isWhiteBot) {
                         invokeLater(new Runnable() {
                             @Override
                             public void run() {
-                                if (!chessBoard.getCurrentPlayer().isInCheckMate() && !chessBoard.getCurrentPlayer().getOpponent().isInCheckMate()) {
+                                if (!chessBoard.getCurrentPlayer().isInCheckMate() && !chessBoard.getCurrentPlayer().getOpponent().isInCheckMate() &&
+                                    !chessBoard.getCurrentPlayer().isInStaleMate() &&
+                                    !chessBoard.isThreefoldRepetition() && !chessBoard.isFiftyMoveDraw()) {
                                     //blackBotPlay(1);
                                     botPlay4(depth);
                                 }
@@ -236,23 +259,23 @@ public class Table {
     }
 
     public void botPlay4(int depth) {
-        BotMove4 generator = new BotMove4();
-        Move generatedMove = generator.execute(chessBoard, depth);
-        generator.setLastMove(generatedMove);
+        Move generatedMove = bot4.execute(chessBoard, depth);
+        bot4.setLastMove(generatedMove);
         chessBoard = chessBoard.getCurrentPlayer().playMove(generatedMove).getBoard();
         
         invokeLater(new Runnable() {
                 @Override
                 public void run() {
                     moveLog.addMove(generatedMove);
-                    Piece.setPromotionPiece(new Queen(generatedMove.getDestinationCoord(), chessBoard.getCurrentPlayer().getColor()));
                     boardPanel.drawBoard(chessBoard, false, true);
 
                     if (isBlackBot && isWhiteBot) {
                         invokeLater(new Runnable() {
                             @Override
                             public void run() {
-                                if (!chessBoard.getCurrentPlayer().isInCheckMate() && !chessBoard.getCurrentPlayer().getOpponent().isInCheckMate()) {
+                                if (!chessBoard.getCurrentPlayer().isInCheckMate() && !chessBoard.getCurrentPlayer().getOpponent().isInCheckMate() &&
+                                    !chessBoard.getCurrentPlayer().isInStaleMate() &&
+                                    !chessBoard.isThreefoldRepetition() && !chessBoard.isFiftyMoveDraw()) {
                                     //blackBotPlay(1);
                                     botPlay3(depth);
                                 }
@@ -286,7 +309,6 @@ public class Table {
                 @Override
                 public void run() {
                     moveLog.addMove(move);
-                    Piece.setPromotionPiece(new Queen(move.getDestinationCoord(), chessBoard.getCurrentPlayer().getColor()));
                     boardPanel.drawBoard(chessBoard, false, true);
 
                     // Call the opponent bot (and handle number of simulations)
@@ -304,6 +326,7 @@ public class Table {
                             public void run() {
                                 simStep++;
                                 chessBoard = Board.createStandardBoard();
+                                resetBotClocks();
                                 moveLog.getMoves().clear();
                                 gameHistoryPanel.clearTable();
                                 takenPiecesPanel.clear();
@@ -317,6 +340,12 @@ public class Table {
         }
     }
 
+    // the bots' clocks are per game, each new board starts them over
+    private void resetBotClocks() {
+        this.bot3.resetClock();
+        this.bot4.resetClock();
+    }
+
     public static BoardDirection getBoardDirection() {
         return boardDirection;
     }
@@ -346,6 +375,7 @@ public class Table {
             @Override
             public void actionPerformed(ActionEvent e) {
                 chessBoard = Board.createStandardBoard();
+                resetBotClocks();
                 moveLog.clear();
                 gameHistoryPanel.clearTable();
                 //gameHistoryPanel.updateMoveHistory(chessBoard, moveLog);
@@ -380,6 +410,7 @@ public class Table {
                 gameHistoryPanel.clearTable();
                 takenPiecesPanel.clear();
                 chessBoard = Board.createStandardBoard();
+                resetBotClocks();
                 Table.boardDirection = boardDirection.getRegular(boardPanel.boardTiles);
                 boardPanel.drawBoard(chessBoard, doHighlight, false);
             }
@@ -396,6 +427,7 @@ public class Table {
                 takenPiecesPanel.clear();
                 moveLog.getMoves().clear();
                 chessBoard = Board.createStandardBoard();
+                resetBotClocks();
                 Table.boardDirection = boardDirection.getRegular(boardPanel.boardTiles);
                 boardPanel.drawBoard(chessBoard, doHighlight, false);
             }
@@ -412,6 +444,7 @@ public class Table {
                 takenPiecesPanel.clear();
                 moveLog.getMoves().clear();
                 chessBoard = Board.createStandardBoard();
+                resetBotClocks();
                 Table.boardDirection = boardDirection.getFlipped(boardPanel.boardTiles);
                 simStep = 1;
                 whiteBotPlay(1);
@@ -431,6 +464,7 @@ public class Table {
                 takenPiecesPanel.clear();
                 gameHistoryPanel.clearTable();
                 chessBoard = Board.createStandardBoard();
+                resetBotClocks();
                 Table.boardDirection = boardDirection.getRegular(boardPanel.boardTiles);
                 doHighlight = false;
                 simStep = 1;
@@ -494,6 +528,7 @@ public class Table {
                 moveLog.getMoves().clear();
                 gameHistoryPanel.clearTable();
                 chessBoard = Board.createStandardBoard();
+                resetBotClocks();
                 Table.boardDirection = boardDirection.getRegular(boardPanel.boardTiles);
                 simStep = 0;
                 whiteBotPlay(2);              
@@ -510,6 +545,7 @@ public class Table {
                 moveLog.getMoves().clear();
                 gameHistoryPanel.clearTable();
                 chessBoard = Board.createStandardBoard();
+                resetBotClocks();
                 Table.boardDirection = boardDirection.getRegular(boardPanel.boardTiles);
                 simStep = 0;
                 whiteBotPlay(10);
@@ -526,6 +562,7 @@ public class Table {
                 moveLog.getMoves().clear();
                 gameHistoryPanel.clearTable();
                 chessBoard = Board.createStandardBoard();
+                resetBotClocks();
                 Table.boardDirection = boardDirection.getRegular(boardPanel.boardTiles);
                 simStep = 0;
                 whiteBotPlay(50);
@@ -596,7 +633,7 @@ public class Table {
         if (playerMovedPiece != null) {
             for (Move move : pieceLegalMoves(board)) {
                 TilePanel tilePanel = boardPanel.getTilePanel(move.getDestinationCoord());
-                if (board.getCurrentPlayer().playMove(move).getMoveStatus().isDone()) {
+                if (board.getCurrentPlayer().leavesKingSafe(move)) {
                     if (!board.getTile(move.getDestinationCoord()).hasPiece() && !(move instanceof EnPassantCapture)) {
                         try {
                             BufferedImage image = ImageIO.read(new File(imageFolderPath + "other/dot.png"));
@@ -620,10 +657,8 @@ public class Table {
             // Handle castle moves independently for kings
             if (playerMovedPiece instanceof King) {
                 Player player = board.getCurrentPlayer();
-                Player opponent = player.getOpponent();
                 return Stream.concat((playerMovedPiece.calculateLegalMoves(board).stream()), 
-                                     player.calculateKingCastles(player.getLegalMoves(), 
-                                                                 opponent.getLegalMoves()).stream()).toList();
+                                     player.calculateKingCastles(player.getLegalMoves()).stream()).toList();
             }
             return playerMovedPiece.calculateLegalMoves(board);
         }
@@ -799,7 +834,6 @@ public class Table {
                                 invokeLater(new Runnable() {
                                     @Override
                                     public void run() {
-                                        Piece.setPromotionPiece(new Queen(move.getDestinationCoord(), chessBoard.getCurrentPlayer().getColor()));
                                         boardPanel.drawBoard(chessBoard, doHighlight, true);
                                         selectTile = null;
                                         destinationTile = null;
@@ -927,7 +961,6 @@ public class Table {
                                 invokeLater(new Runnable() {
                                     @Override
                                     public void run() {
-                                        Piece.setPromotionPiece(new Queen(move.getDestinationCoord(), chessBoard.getCurrentPlayer().getColor()));
                                         boardPanel.drawBoard(chessBoard, doHighlight, true);
                                         selectTile = null;
                                         destinationTile = null;
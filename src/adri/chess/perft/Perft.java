@@ -0,0 +1,198 @@
+package adri.chess.perft;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import adri.chess.engine.board.BitBoard;
+import adri.chess.engine.board.Board;
+import adri.chess.engine.board.Move;
+import adri.chess.engine.board.MoveGenerator;
+import adri.chess.engine.board.MoveList;
+import adri.chess.engine.board.PackedMove;
+import adri.chess.engine.player.MoveUpdate;
+import adri.chess.pgn.FenUtilities;
+
+// Counts the leaf nodes of the legal move tree to a fixed depth, to check move generation
+// against published numbers and to time it. Prints a "divide" line per root move.
+//
+//   java adri.chess.perft.Perft [options] <depth> [fen]
+//     -threads N   split the root moves over N threads (default 1)
+//     -hash MB     reuse counts of subtrees already seen, in a table of that many MB
+//     -legacy      walk the Board/Player move model instead of BitBoard and MoveGenerator
+public class Perft {
+
+    public static final String START_FEN = "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1";
+
+    private static final int MAX_PLY = 64;
+
+    private final MoveList[] moveLists; // one per ply, each thread has its own Perft
+    private final PerftTable table;
+
+    public Perft(final PerftTable table) {
+        this.moveLists = new MoveList[MAX_PLY];
+        for (int i = 0; i < MAX_PLY; i++) {
+            this.moveLists[i] = new MoveList();
+        }
+        this.table = table;
+    }
+
+    public long perft(final BitBoard position, final int depth) {
+        if (depth == 0) {
+            return 1;
+        }
+        final MoveList moves = this.moveLists[position.getPly()];
+        MoveGenerator.generateLegalMoves(position, moves);
+        // bulk counting, every legal move at the last ply is one leaf
+        if (depth == 1) {
+            return moves.size();
+        }
+
+        if (this.table != null) {
+            final long cached = this.table.probe(position.getHash(), depth);
+            if (cached >= 0) {
+                return cached;
+            }
+        }
+
+        long nodes = 0;
+        for (int i = 0; i < moves.size(); i++) {
+            position.makeMove(moves.get(i));
+            nodes += perft(position, depth - 1);
+            position.unmakeMove();
+        }
+
+        if (this.table != null) {
+            this.table.store(position.getHash(), depth, nodes);
+        }
+        return nodes;
+    }
+
+    // the same count through Board and Player, to compare the old generator with the new one
+    public static long legacyPerft(final Board board, final int depth) {
+        if (depth == 0) {
+            return 1;
+        }
+        long nodes = 0;
+        for (final Move move : board.getCurrentPlayer().getLegalMoves()) {
+            final MoveUpdate update = board.getCurrentPlayer().playMove(move);
+            if (update.getMoveStatus().isDone()) {
+                nodes += depth == 1 ? 1 : legacyPerft(update.getBoard(), depth - 1);
+            }
+        }
+        return nodes;
+    }
+
+    public static long divide(final String fen, final int depth, final int threads, final PerftTable table,
+                              final boolean legacy) throws InterruptedException, ExecutionException {
+        if (legacy) {
+            return legacyDivide(fen, depth, threads);
+        }
+        final BitBoard root = FenUtilities.createPositionFromFEN(fen);
+        final MoveList rootMoves = new MoveList();
+        MoveGenerator.generateLegalMoves(root, rootMoves);
+
+        // every root move gets its own position, so the subtrees can be counted on any thread
+        final ExecutorService executor = Executors.newFixedThreadPool(threads);
+        final List<Future<Long>> counts = new ArrayList<>();
+        try {
+            for (int i = 0; i < rootMoves.size(); i++) {
+                final int move = rootMoves.get(i);
+                counts.add(executor.submit(() -> {
+                    final BitBoard position = FenUtilities.createPositionFromFEN(fen);
+                    position.makeMove(move);
+                    return new Perft(table).perft(position, depth - 1);
+                }));
+            }
+
+            long total = 0;
+            for (int i = 0; i < rootMoves.size(); i++) {
+                final long nodes = counts.get(i).get();
+                System.out.println(PackedMove.toString(rootMoves.get(i)) + ": " + nodes);
+                total += nodes;
+            }
+            return total;
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    // the root moves come from the old generator too, so a move it adds or misses shows up in the divide
+    private static long legacyDivide(final String fen, final int depth, final int threads)
+            throws InterruptedException, ExecutionException {
+        final Board root = FenUtilities.createGameFromFEN(fen);
+        final List<Move> rootMoves = new ArrayList<>(root.getCurrentPlayer().getLegalMoves());
+
+        // each thread builds its own board, the generator lists the moves in the same order every time
+        final ExecutorService executor = Executors.newFixedThreadPool(threads);
+        final List<Integer> played = new ArrayList<>();
+        final List<Future<Long>> counts = new ArrayList<>();
+        try {
+            for (int i = 0; i < rootMoves.size(); i++) {
+                if (!root.getCurrentPlayer().playMove(rootMoves.get(i)).getMoveStatus().isDone()) {
+                    continue;
+                }
+                final int index = i;
+                played.add(index);
+                counts.add(executor.submit(() -> {
+                    final Board board = FenUtilities.createGameFromFEN(fen);
+                    final Move move = new ArrayList<>(board.getCurrentPlayer().getLegalMoves()).get(index);
+                    final MoveUpdate update = board.getCurrentPlayer().playMove(move);
+                    return update.getMoveStatus().isDone() ? legacyPerft(update.getBoard(), depth - 1) : 0L;
+                }));
+            }
+
+            long total = 0;
+            for (int i = 0; i < played.size(); i++) {
+                final long nodes = counts.get(i).get();
+                System.out.println(PackedMove.toString(PackedMove.fromMove(rootMoves.get(played.get(i)))) + ": " + nodes);
+                total += nodes;
+            }
+            return total;
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    public static void main(String[] args) throws InterruptedException, ExecutionException {
+        int threads = 1;
+        int hashMegabytes = 0;
+        boolean legacy = false;
+        int depth = -1;
+        final StringBuilder fen = new StringBuilder();
+
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "-threads" -> threads = Integer.parseInt(args[++i]);
+                case "-hash" -> hashMegabytes = Integer.parseInt(args[++i]);
+                case "-legacy" -> legacy = true;
+                default -> {
+                    if (depth < 0) {
+                        depth = Integer.parseInt(args[i]);
+                    } else {
+                        fen.append(args[i]).append(' ');
+                    }
+                }
+            }
+        }
+        if (depth < 1) {
+            System.out.println("Usage: Perft [-threads N] [-hash MB] [-legacy] <depth> [fen]");
+            return;
+        }
+
+        final String rootFen = fen.length() == 0 ? START_FEN : fen.toString().trim();
+        final PerftTable table = hashMegabytes > 0 && !legacy ? new PerftTable(hashMegabytes) : null;
+
+        final long startTime = System.nanoTime();
+        final long nodes = divide(rootFen, depth, threads, table, legacy);
+        final long elapsed = Math.max(1, System.nanoTime() - startTime);
+
+        System.out.println();
+        System.out.println("Nodes: " + nodes);
+        System.out.println("Time: " + elapsed / 1000000 + "ms");
+        System.out.println("NPS: " + nodes * 1000000000L / elapsed);
+    }
+}
@@ -0,0 +1,40 @@
+package adri.chess.perft;
+
+// Subtree counts by Zobrist key and depth, shared by every perft thread without locks.
+// Each slot keeps key ^ data next to data, so a slot torn by two threads writing at
+// once no longer matches its key and reads as a miss instead of a wrong count.
+public class PerftTable {
+
+    private static final int BYTES_PER_ENTRY = 16;
+
+    private final long[] keys;
+    private final long[] data; // node count << 8 | depth
+    private final int mask;
+
+    public PerftTable(final int megabytes) {
+        // largest power of two number of entries that fits
+        final long entries = Long.highestOneBit(Math.max(1L, (long) megabytes * 1024 * 1024 / BYTES_PER_ENTRY));
+        final int size = (int) Math.min(entries, 1 << 30);
+        this.keys = new long[size];
+        this.data = new long[size];
+        this.mask = size - 1;
+    }
+
+    // node count stored for this position and depth, or -1
+    public long probe(final long key, final int depth) {
+        final int index = (int) key & this.mask;
+        final long entry = this.data[index];
+        if ((this.keys[index] ^ entry) != key || (entry & 0xFF) != depth) {
+            return -1;
+        }
+        return entry >>> 8;
+    }
+
+    // always replaces, transpositions in perft are mostly between nearby subtrees
+    public void store(final long key, final int depth, final long nodes) {
+        final int index = (int) key & this.mask;
+        final long entry = nodes << 8 | depth;
+        this.keys[index] = key ^ entry;
+        this.data[index] = entry;
+    }
+}
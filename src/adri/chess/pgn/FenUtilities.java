@@ -1,33 +1,87 @@
 package adri.chess.pgn;
 
+import adri.chess.engine.ChessColor;
+import adri.chess.engine.board.BitBoard;
 import adri.chess.engine.board.Board;
 import adri.chess.engine.board.BoardUtils;
+import adri.chess.engine.board.PackedMove;
 import adri.chess.engine.pieces.Pawn;
 
 public class FenUtilities {
+
+    private static final String PIECE_CHARS = "PNBRQKpnbrqk"; // in BitBoard piece index order
+
     private FenUtilities() {
         throw new RuntimeException("Not instantiable");
     }
 
-    public static Board createCameFromFEN(final String fenString) {
-        return null;
+    public static Board createGameFromFEN(final String fenString) {
+        return createPositionFromFEN(fenString).toBoard();
+    }
+
+    // piece placement, side to move, castling, en passant and the halfmove clock; the move number is ignored
+    public static BitBoard createPositionFromFEN(final String fenString) {
+        final String[] fields = fenString.trim().split("\\s+");
+        if (fields.length < 4) {
+            throw new IllegalArgumentException("Incomplete FEN: " + fenString);
+        }
+        final BitBoard position = new BitBoard();
+
+        int square = 0;
+        for (char c : fields[0].toCharArray()) {
+            if (c == '/') {
+                continue;
+            }
+            if (Character.isDigit(c)) {
+                square += c - '0';
+            } else {
+                final int pieceIndex = PIECE_CHARS.indexOf(c);
+                if (pieceIndex < 0 || square >= BoardUtils.NUM_TILES) {
+                    throw new IllegalArgumentException("Bad piece placement in FEN: " + fenString);
+                }
+                position.setPiece(pieceIndex, square++);
+            }
+        }
+
+        position.setSideToMove(fields[1].equals("b") ? ChessColor.BLACK : ChessColor.WHITE);
+
+        int castlingRights = 0;
+        for (char c : fields[2].toCharArray()) {
+            switch (c) {
+                case 'K' -> castlingRights |= BitBoard.WHITE_KING_SIDE;
+                case 'Q' -> castlingRights |= BitBoard.WHITE_QUEEN_SIDE;
+                case 'k' -> castlingRights |= BitBoard.BLACK_KING_SIDE;
+                case 'q' -> castlingRights |= BitBoard.BLACK_QUEEN_SIDE;
+                default -> { }
+            }
+        }
+        position.setCastlingRights(castlingRights);
+
+        if (!fields[3].equals("-")) {
+            position.setEnPassantSquare(('8' - fields[3].charAt(1)) * 8 + (fields[3].charAt(0) - 'a'));
+        }
+        if (fields.length > 4) {
+            position.setHalfmoveClock(Integer.parseInt(fields[4]));
+        }
+        position.recomputeHash();
+        return position;
     }
 
     public static String createFENFromGame(final Board board) {
         return calculateBoardText(board) + " " + 
                calculateCurrentPlayerText(board) + " " + 
                calculateCastleText(board) + " " + 
-               calculateEnPassantSquare(board) + " 0 1";
+               calculateEnPassantSquare(board) + " " +
+               board.getHalfmoveClock() + " 1";
     }
 
     private static String calculateEnPassantSquare(final Board board) {
-        //TODO implement enpassant FEN format
-        /*final Pawn enPassantPawn = board.getEnPassantPawn();
-        if (enPassantPawn != null) {
-            int[] enPassantPos = enPassantPawn.getPiecePos();
-            return BoardUtils.getPositionAtCoordinate(enPassantPos[0]*8 + enPassantPos[1] + 
-                                                      8*enPassantPawn.getPieceColor().getOppositeDirection());
-        }*/
+        // the square behind a pawn that just jumped, if the side to move could take it
+        final Pawn jumpedPawn = board.getJumpedPawn();
+        if (jumpedPawn != null && jumpedPawn.getPieceColor() != board.getCurrentPlayer().getColor()) {
+            final int[] jumpedPos = jumpedPawn.getPiecePos();
+            return PackedMove.squareName((jumpedPos[0] + jumpedPawn.getPieceColor().getOppositeDirection()) * 8 + jumpedPos[1]);
+        }
         return "-";
     }
 
@@ -50,14 +104,14 @@ public class FenUtilities {
     }
 
     private static String calculateCurrentPlayerText(final Board board) {
-        return board.getCurrentPlayer().toString().substring(0, 1).toLowerCase();
+        return board.getCurrentPlayer().getColor().isWhite() ? "w" : "b";
     }
 
     private static String calculateBoardText(final Board board) {
         final StringBuilder builder = new StringBuilder();
         for (int i = 0; i < BoardUtils.NUM_RANKS; i++) {
-            for (int j = 0; i < BoardUtils.NUM_FILES; j++) {
-                final String tileText = board.getTile(new int[]{1, 2}).toString();
+            for (int j = 0; j < BoardUtils.NUM_FILES; j++) {
+                final String tileText = board.getTile(new int[]{i, j}).toString();
                 builder.append(tileText);
             }
         }
@@ -70,7 +124,7 @@ public class FenUtilities {
         builder.insert(53, "/");
         builder.insert(62, "/");
 
-        return builder.toString().replaceAll("---------", "8")
+        return builder.toString().replaceAll("--------", "8")
                                  .replaceAll("-------", "7")
                                  .replaceAll("------", "6")
                                  .replaceAll("-----", "5")